@@ -18,75 +18,56 @@ package org.ehrbase.testdata.loader;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nedap.archie.json.JacksonUtil;
-import com.nedap.archie.rm.composition.AdminEntry;
-import com.nedap.archie.rm.composition.CareEntry;
 import com.nedap.archie.rm.composition.Composition;
-import com.nedap.archie.rm.composition.EventContext;
-import com.nedap.archie.rm.composition.Section;
-import com.nedap.archie.rm.datatypes.CodePhrase;
-import com.nedap.archie.rm.datavalues.DvCodedText;
-import com.nedap.archie.rm.datavalues.DvText;
-import com.nedap.archie.rm.datavalues.TermMapping;
-import com.nedap.archie.rm.generic.Participation;
-import com.nedap.archie.rm.generic.PartyIdentified;
-import com.nedap.archie.rm.generic.PartyProxy;
-import org.ehrbase.serialisation.dbencoding.RawJson;
+import com.zaxxer.hikari.HikariDataSource;
+import org.ehrbase.testdata.loader.benchmark.ReadBenchmark;
 import org.ehrbase.testdata.loader.config.LoaderProperties;
-import org.ehrbase.testdata.loader.jooq.enums.ContributionChangeType;
-import org.ehrbase.testdata.loader.jooq.enums.ContributionDataType;
-import org.ehrbase.testdata.loader.jooq.enums.ContributionState;
-import org.ehrbase.testdata.loader.jooq.enums.EntryType;
+import org.ehrbase.testdata.loader.corpus.CompositionEncoder;
+import org.ehrbase.testdata.loader.corpus.Corpus;
+import org.ehrbase.testdata.loader.corpus.CorpusSnapshot;
+import org.ehrbase.testdata.loader.corpus.PayloadStore;
+import org.ehrbase.testdata.loader.corpus.PreparedTemplate;
+import org.ehrbase.testdata.loader.estimate.Estimator;
 import org.ehrbase.testdata.loader.jooq.enums.PartyRefIdType;
 import org.ehrbase.testdata.loader.jooq.enums.PartyType;
-import org.ehrbase.testdata.loader.jooq.tables.Ehr;
 import org.ehrbase.testdata.loader.jooq.tables.Identifier;
 import org.ehrbase.testdata.loader.jooq.tables.System;
-import org.ehrbase.testdata.loader.jooq.tables.records.AuditDetailsRecord;
-import org.ehrbase.testdata.loader.jooq.tables.records.CompositionRecord;
-import org.ehrbase.testdata.loader.jooq.tables.records.ContributionRecord;
-import org.ehrbase.testdata.loader.jooq.tables.records.EhrRecord;
-import org.ehrbase.testdata.loader.jooq.tables.records.EntryRecord;
-import org.ehrbase.testdata.loader.jooq.tables.records.EventContextRecord;
-import org.ehrbase.testdata.loader.jooq.tables.records.ParticipationRecord;
-import org.ehrbase.testdata.loader.jooq.tables.records.StatusRecord;
 import org.ehrbase.testdata.loader.jooq.tables.records.TerritoryRecord;
-import org.ehrbase.testdata.loader.jooq.udt.records.CodePhraseRecord;
-import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+import org.ehrbase.testdata.loader.purge.Purger;
+import org.ehrbase.testdata.loader.soak.SoakRunner;
 import org.ehrbase.testdata.loader.utils.FileUtils;
+import org.ehrbase.testdata.loader.utils.WorkerUtils;
+import org.ehrbase.testdata.loader.writer.JdbcWriter;
+import org.ehrbase.testdata.loader.writer.JooqWriter;
+import org.ehrbase.testdata.loader.writer.LoadContext;
+import org.ehrbase.testdata.loader.writer.PhysicalLayout;
+import org.ehrbase.testdata.loader.writer.TestDataWriter;
 import org.jooq.DSLContext;
-import org.jooq.JSONB;
+import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.util.Assert;
-import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StopWatch;
 
 import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.temporal.TemporalAccessor;
-import java.util.AbstractMap;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
 import java.util.UUID;
-import java.util.stream.IntStream;
-
-import static org.ehrbase.testdata.loader.jooq.tables.AuditDetails.AUDIT_DETAILS;
-import static org.ehrbase.testdata.loader.jooq.tables.Composition.COMPOSITION;
-import static org.ehrbase.testdata.loader.jooq.tables.Contribution.CONTRIBUTION;
-import static org.ehrbase.testdata.loader.jooq.tables.Entry.ENTRY;
-import static org.ehrbase.testdata.loader.jooq.tables.EventContext.EVENT_CONTEXT;
-import static org.ehrbase.testdata.loader.jooq.tables.Participation.PARTICIPATION;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
 import static org.ehrbase.testdata.loader.jooq.tables.PartyIdentified.PARTY_IDENTIFIED;
-import static org.ehrbase.testdata.loader.jooq.tables.Status.STATUS;
 import static org.ehrbase.testdata.loader.jooq.tables.TemplateStore.TEMPLATE_STORE;
 import static org.ehrbase.testdata.loader.jooq.tables.Territory.TERRITORY;
 
@@ -100,21 +81,21 @@ public class LoaderApplication implements CommandLineRunner {
 
     private final Logger log = LoggerFactory.getLogger(LoaderApplication.class);
 
-    private final Random random = new Random();
-    private final List<Composition> compositions = new ArrayList<>();
-
     private final ObjectMapper objectMapper = JacksonUtil.getObjectMapper();
-    private final RawJson rawJson = new RawJson();
 
     private final DSLContext dsl;
+    private final DataSource dataSource;
     private final LoaderProperties properties;
 
     private UUID systemId;
     private UUID committerId;
     private String zoneId;
+    private Corpus corpus;
+    private LoadContext loadContext;
 
-    public LoaderApplication(DSLContext dsl, LoaderProperties properties) {
+    public LoaderApplication(DSLContext dsl, DataSource dataSource, LoaderProperties properties) {
         this.dsl = dsl;
+        this.dataSource = dataSource;
         this.properties = properties;
     }
 
@@ -125,21 +106,61 @@ public class LoaderApplication implements CommandLineRunner {
     @PostConstruct
     public void initialize() throws IOException {
         zoneId = ZoneId.systemDefault().toString();
+
+        var snapshot = properties.getSnapshot();
+        if (snapshot != null && Files.exists(Path.of(snapshot))) {
+            corpus = CorpusSnapshot.read(Path.of(snapshot), zoneId);
+            log.info("Read snapshot {}", snapshot);
+        } else {
+            if (snapshot != null) {
+                log.warn("Snapshot {} not found, preparing corpus from resources", snapshot);
+            }
+            corpus = new Corpus(new PayloadStore());
+            initializeTemplates();
+            initializeCompositions();
+        }
+
+        log.info("Prepared {} templates and {} compositions ({} bytes off-heap)", corpus.getTemplates().size(),
+                corpus.getCompositions().size(), corpus.getPayloadStore().size());
+
+        if (properties.getBuildSnapshot() != null) {
+            // Building a snapshot does not need the database
+            return;
+        }
+
         systemId = getSystemId();
         committerId = getCommitterId();
-
-        initializeTemplates();
-        initializeCompositions();
+        uploadTemplates();
+        var territories = new HashMap<String, Integer>();
+        corpus.getCompositions().forEach(composition ->
+                territories.computeIfAbsent(composition.getTerritory(), this::getTerritory));
+        // The sample of an estimate is purged by run id, it must not share the id of existing data
+        var runId = properties.getRunId() != null && !properties.isEstimate()
+                ? properties.getRunId()
+                : UUID.randomUUID().toString().substring(0, 8);
+        loadContext = new LoadContext(systemId, committerId, zoneId, territories, corpus.getEhrStatusOtherDetails(),
+                runId);
     }
 
     private void initializeTemplates() throws IOException {
-        createTemplate("Corona_Anamnese", "templates/corona_anamnese.opt");
-        createTemplate("ehrbase_blood_pressure_simple.de.v0", "templates/ehrbase_blood_pressure.opt");
-        createTemplate("International Patient Summary", "templates/international_patient_summary.opt");
-        createTemplate("Virologischer Befund", "templates/virologischer_befund.opt");
+        addTemplate("Corona_Anamnese", "templates/corona_anamnese.opt");
+        addTemplate("ehrbase_blood_pressure_simple.de.v0", "templates/ehrbase_blood_pressure.opt");
+        addTemplate("International Patient Summary", "templates/international_patient_summary.opt");
+        addTemplate("Virologischer Befund", "templates/virologischer_befund.opt");
     }
 
-    private void initializeCompositions() {
+    private void addTemplate(String templateId, String resourceLocation) throws IOException {
+        byte[] content;
+        try (var in = FileUtils.getInputStream(resourceLocation)) {
+            content = in.readAllBytes();
+        }
+        var hash = DigestUtils.md5DigestAsHex(content);
+        corpus.addTemplate(new PreparedTemplate(templateId, hash, corpus.getPayloadStore().put(content)));
+    }
+
+    private void initializeCompositions() throws IOException {
+        var encoder = new CompositionEncoder(corpus.getPayloadStore(), zoneId);
+
         List<String> compositionFiles = List.of(
                 "compositions/blood_pressure.json",
                 "compositions/international_patient_summary.json",
@@ -149,99 +170,166 @@ public class LoaderApplication implements CommandLineRunner {
 
         compositionFiles.forEach(location -> {
             try (var in = FileUtils.getInputStream(location)) {
-                compositions.add(objectMapper.readValue(in, Composition.class));
+                corpus.addComposition(encoder.encode(objectMapper.readValue(in, Composition.class)));
             } catch (IOException e) {
                 throw new LoaderException("Failed to read composition file", e);
             }
         });
+        corpus.setEhrStatusOtherDetails(corpus.getPayloadStore().put(FileUtils.getContent("ehr_status/ehr_status.json")));
     }
 
     @Override
     public void run(String... args) {
+        if (properties.getPurge() != null) {
+            new Purger(dsl, properties).run();
+        } else if (properties.getBuildSnapshot() != null) {
+            CorpusSnapshot.write(corpus, zoneId, Path.of(properties.getBuildSnapshot()));
+            log.info("Snapshot written to {}", properties.getBuildSnapshot());
+        } else if (properties.isEstimate()) {
+            checkWriterConnections();
+            new Estimator(this, dsl, properties).run();
+        } else if (properties.getMode() == LoaderProperties.Mode.SOAK) {
+            checkWriterConnections();
+            new SoakRunner(this, dsl, properties).run();
+        } else if (properties.getMode() == LoaderProperties.Mode.BENCHMARK) {
+            checkBenchmarkConnections();
+            new ReadBenchmark(dsl, properties.getBenchmark()).run();
+        } else {
+            checkWriterConnections();
+            if (properties.getBenchmark().isEnabled()) {
+                checkBenchmarkConnections();
+            }
+            load();
+            if (properties.getBenchmark().isEnabled()) {
+                new ReadBenchmark(dsl, properties.getBenchmark()).run();
+            }
+        }
+    }
+
+    /**
+     * Each JDBC writer holds a connection for its whole lifetime, the extra writers would time out waiting for one.
+     */
+    private void checkWriterConnections() {
+        if (properties.getWriter() == LoaderProperties.Writer.JDBC) {
+            checkConnectionPool(properties.getWorkers(), "jdbc writer workers");
+        }
+    }
+
+    /**
+     * Clients waiting for a connection would add pool queueing to the measured latencies.
+     */
+    private void checkBenchmarkConnections() {
+        checkConnectionPool(properties.getBenchmark().getClients(), "benchmark clients");
+    }
+
+    /**
+     * Fails fast when more threads, each needing its own connection, would run than the connection pool holds.
+     */
+    private void checkConnectionPool(int threads, String description) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                if (threads > poolSize) {
+                    throw new LoaderException(String.format("%d %s exceed spring.datasource.hikari.maximum-pool-size "
+                            + "(%d), each of them needs a connection", threads, description, poolSize));
+                }
+            }
+        } catch (SQLException e) {
+            throw new LoaderException("Failed to inspect data source", e);
+        }
+    }
+
+    private void load() {
+        var layout = new PhysicalLayout(dsl);
+        if (properties.getFillfactor() != null) {
+            layout.setFillfactor(properties.getFillfactor());
+        }
+
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        log.info("Start loading test data... ({} EHRs, {} compositions)", properties.getEhr(),
-                properties.getEhr() * properties.getCompositionPerEhr());
+        log.info("Start loading test data... ({} EHRs, {} compositions, {} write order, run {})", properties.getEhr(),
+                properties.getEhr() * properties.getCompositionPerEhr(), properties.getWriteOrder(),
+                loadContext.getRunId());
 
-        IntStream.rangeClosed(1, properties.getEhr())
-                .parallel()
-                .forEach(i -> {
-                    UUID ehrId = insertEhr();
-                    insertCompositions(ehrId);
-                });
+        loadEhrs(properties.getEhr());
 
         stopWatch.stop();
         log.info("Test data loaded in {} s", stopWatch.getTotalTimeSeconds());
-    }
 
-    public void insertCompositions(UUID ehrId) {
-        IntStream.rangeClosed(1, properties.getCompositionPerEhr())
-                .forEach(i -> {
-                    var composition = getRandomComposition();
-                    var compositionId = createComposition(ehrId, composition);
-                    createEntry(compositionId, composition);
-                    if (composition.getContext() != null) {
-                        var eventContextId = createEventContext(compositionId, composition.getContext());
-                        createParticipations(eventContextId, composition.getContext().getParticipations());
-                    }
-                });
+        if (properties.isCluster()) {
+            layout.cluster();
+        }
     }
 
-    public UUID insertEhr() {
-        var ehrId = createEhr();
-        createStatus(ehrId);
-        return ehrId;
+    /**
+     * Loads the given number of EHRs with {@code workers} concurrent writers, in the configured write order.
+     */
+    public void loadEhrs(int ehrCount) {
+        var ehrRangeSize = isInterleaved() ? 1 : properties.getEhrRangeSize();
+        var maxBufferedPayload = properties.getMaxBufferedPayload().toBytes();
+        var nextEhr = new AtomicInteger();
+
+        WorkerUtils.runWorkers(properties.getWorkers(), () -> {
+            try (var writer = newWriter()) {
+                int first;
+                while ((first = nextEhr.getAndAdd(ehrRangeSize)) < ehrCount) {
+                    int last = Math.min(first + ehrRangeSize, ehrCount);
+                    long bufferedPayload = 0;
+                    for (int i = first; i < last; i++) {
+                        bufferedPayload += insertEhr(writer);
+                        if (bufferedPayload >= maxBufferedPayload) {
+                            writer.flush();
+                            bufferedPayload = 0;
+                        }
+                    }
+                    writer.flush();
+                }
+            }
+        });
     }
 
     /**
-     * Creates an {@link EhrRecord}.
+     * Adds an EHR with {@code compositionPerEhr} random compositions, flushing after each composition when the write
+     * order is interleaved.
+     *
+     * @return the length in bytes of the JSON payloads of the compositions
      */
-    private UUID createEhr() {
-        var ehrRecord = dsl.newRecord(Ehr.EHR_);
-        ehrRecord.setDateCreated(LocalDateTime.now());
-        ehrRecord.setDateCreatedTzid(zoneId);
-        ehrRecord.setSystemId(systemId);
-        ehrRecord.store();
-        log.trace("Created EHR: {}", ehrRecord.getId());
-        return ehrRecord.getId();
+    private long insertEhr(TestDataWriter writer) {
+        var interleaved = isInterleaved();
+        var ehrId = writer.insertEhr();
+        long payloadLength = 0;
+        for (int i = 0; i < properties.getCompositionPerEhr(); i++) {
+            var composition = corpus.randomComposition();
+            writer.insertComposition(ehrId, composition);
+            payloadLength += composition.getPayloadLength();
+            if (interleaved) {
+                writer.flush();
+            }
+        }
+        return payloadLength;
+    }
+
+    private boolean isInterleaved() {
+        return properties.getWriteOrder() == LoaderProperties.WriteOrder.INTERLEAVED;
     }
 
     /**
-     * Creates an {@link StatusRecord} for the given EHR.
+     * Creates a writer to be used by a single thread.
      */
-    private void createStatus(UUID ehrId) {
-        var partyRecord = dsl.newRecord(PARTY_IDENTIFIED);
-        partyRecord.setPartyRefValue(UUID.randomUUID().toString());
-        partyRecord.setPartyRefScheme("id_scheme");
-        partyRecord.setPartyRefNamespace("patients");
-        partyRecord.setPartyRefType("PERSON");
-        partyRecord.setPartyType(PartyType.party_self);
-        partyRecord.setObjectIdType(PartyRefIdType.generic_id);
-        partyRecord.store();
-
-        var statusRecord = dsl.newRecord(STATUS);
-        statusRecord.setEhrId(ehrId);
-        statusRecord.setParty(partyRecord.getId());
-        statusRecord.setSysTransaction(LocalDateTime.now());
-        statusRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
-        statusRecord.setHasAudit(createAuditDetails("Create EHR_STATUS"));
-        statusRecord.setInContribution(createContribution(ehrId, ContributionDataType.ehr, "Create EHR_STATUS"));
-        statusRecord.setArchetypeNodeId("openEHR-EHR-ITEM_TREE.fake.v1");
-        statusRecord.setName(new DvCodedTextRecord("Created by Test Data Loader", null, null, null, null, null));
-
-        try {
-            statusRecord.setOtherDetails(JSONB.jsonb(FileUtils.getContent("ehr_status/ehr_status.json")));
-        } catch (IOException e) {
-            throw new LoaderException("Failed to read EHR_STATUS file", e);
+    public TestDataWriter newWriter() {
+        if (properties.getWriter() == LoaderProperties.Writer.JDBC) {
+            return new JdbcWriter(dataSource, loadContext);
         }
+        return new JooqWriter(dsl, loadContext);
+    }
 
-        statusRecord.store();
-        log.trace("Created EHR_STATUS: {}", statusRecord.getId());
+    public Corpus getCorpus() {
+        return corpus;
     }
 
-    private Composition getRandomComposition() {
-        return compositions.get(random.nextInt(4));
+    public String getRunId() {
+        return loadContext.getRunId();
     }
 
     private UUID getSystemId() {
@@ -283,244 +371,45 @@ public class LoaderApplication implements CommandLineRunner {
         return committerRecord.getId();
     }
 
-    private void createTemplate(String templateId, String resourceLocation) throws IOException {
-        var existingTemplateStore =
-                dsl.fetchOptional(TEMPLATE_STORE, TEMPLATE_STORE.TEMPLATE_ID.eq(templateId));
-
-        if (existingTemplateStore.isPresent()) {
-            log.info("Template {} already exists", templateId);
-        } else {
-            var templateStoreRecord = dsl.newRecord(TEMPLATE_STORE);
-            templateStoreRecord.setId(UUID.randomUUID());
-            templateStoreRecord.setTemplateId(templateId);
-            templateStoreRecord.setContent(FileUtils.getContent(resourceLocation));
-            templateStoreRecord.setSysTransaction(LocalDateTime.now());
-            templateStoreRecord.store();
-        }
-    }
-
-    private UUID createPartyIdentified(PartyProxy composer) {
-        var partyIdentifiedRecord = dsl.newRecord(PARTY_IDENTIFIED);
-
-        if (composer instanceof PartyIdentified) {
-            partyIdentifiedRecord.setName(((PartyIdentified) composer).getName());
-            partyIdentifiedRecord.setPartyType(PartyType.party_identified);
-            partyIdentifiedRecord.setObjectIdType(PartyRefIdType.undefined);
-            partyIdentifiedRecord.store();
-            return partyIdentifiedRecord.getId();
-        } else {
-            throw new IllegalArgumentException("Unsupported PartyProxy implementation");
-        }
-    }
-
-    /**
-     * Creates a {@link CompositionRecord} for the given EHR.
-     */
-    private UUID createComposition(UUID ehrId, Composition composition) {
-        var compositionRecord = dsl.newRecord(COMPOSITION);
-        compositionRecord.setEhrId(ehrId);
-        compositionRecord.setInContribution(createContribution(ehrId, ContributionDataType.composition, "Create COMPOSITION"));
-        compositionRecord.setLanguage(composition.getLanguage().getCodeString());
-        compositionRecord.setTerritory(getTerritory(composition.getTerritory().getCodeString()));
-        compositionRecord.setComposer(createPartyIdentified(composition.getComposer()));
-        compositionRecord.setSysTransaction(LocalDateTime.now());
-        compositionRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
-        compositionRecord.setHasAudit(createAuditDetails("Create COMPOSITION"));
-        // AttestationRef
-        // FeederAudit
-        compositionRecord.setLinks(JSONB.jsonb("[]"));
-        compositionRecord.store();
-        return compositionRecord.getId();
-    }
-
-    /**
-     * Creates an {@link EntryRecord} for the given composition.
-     */
-    private void createEntry(UUID compositionId, Composition composition) {
-        Assert.notNull(composition.getArchetypeDetails().getTemplateId(), "Template Id must not be null");
-
-        var entryRecord = dsl.newRecord(ENTRY);
-        entryRecord.setCompositionId(compositionId);
-        entryRecord.setSequence(0);
-        entryRecord.setItemType(resolveEntryType(composition));
-        entryRecord.setTemplateId(composition.getArchetypeDetails().getTemplateId().getValue());
-        entryRecord.setArchetypeId(composition.getArchetypeNodeId());
-        entryRecord.setCategory(createDvCodedText(composition.getCategory()));
-        entryRecord.setEntry(JSONB.jsonb(rawJson.marshal(composition)));
-        entryRecord.setSysTransaction(LocalDateTime.now());
-        entryRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
-        entryRecord.setRmVersion(composition.getArchetypeDetails().getRmVersion());
-        entryRecord.setName(createDvCodedText(composition.getName()));
-        entryRecord.store();
-    }
-
-    /**
-     * Creates an {@link EventContextRecord} for the given composition.
-     */
-    private UUID createEventContext(UUID compositionId, EventContext eventContext) {
-        var eventContextRecord = dsl.newRecord(EVENT_CONTEXT);
-        eventContextRecord.setCompositionId(compositionId);
-
-        var startTime = eventContext.getStartTime().getValue();
-        eventContextRecord.setStartTime(LocalDateTime.from(startTime));
-        eventContextRecord.setStartTimeTzid(resolveTimeZone(startTime));
-        eventContextRecord.setLocation(eventContext.getLocation());
-        eventContextRecord.setSetting(createDvCodedText(eventContext.getSetting()));
-        eventContextRecord.setSysTransaction(LocalDateTime.now());
-        eventContextRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
-        // Facility
-
-        if (eventContext.getEndTime() != null) {
-            var endTime = eventContext.getEndTime().getValue();
-            eventContextRecord.setEndTime(LocalDateTime.from(endTime));
-            eventContextRecord.setEndTimeTzid(resolveTimeZone(endTime));
-        }
-
-        if (eventContext.getOtherContext() != null && !CollectionUtils.isEmpty(eventContext.getOtherContext().getItems())) {
-            eventContextRecord.setOtherContext(JSONB.jsonb(rawJson.marshal(eventContext.getOtherContext())));
-        }
-
-        eventContextRecord.store();
-        return eventContextRecord.getId();
-    }
-
     /**
-     * Creates a {@link ParticipationRecord} for the given event context.
+     * Uploads the templates of the corpus that are missing in the database or whose content differs.
      */
-    private void createParticipations(UUID eventContextId, List<Participation> participations) {
-        for (var participation : participations) {
-            var participationRecord = dsl.newRecord(PARTICIPATION);
-            participationRecord.setEventContext(eventContextId);
-            participationRecord.setPerformer(createPartyIdentified(participation.getPerformer()));
-            participationRecord.setFunction(createDvCodedText(participation.getFunction()));
-            participationRecord.setMode(createDvCodedText(participation.getMode()));
-            participationRecord.setSysTransaction(LocalDateTime.now());
-            participationRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
-            if (participation.getTime() != null && participation.getTime().getLower() != null) {
-                var lower = participation.getTime().getLower().getValue();
-                participationRecord.setTimeLower(LocalDateTime.from(lower));
-                participationRecord.setTimeLowerTz(resolveTimeZone(lower));
-            }
-            if (participation.getTime() != null && participation.getTime().getUpper() != null) {
-                var upper = participation.getTime().getUpper().getValue();
-                participationRecord.setTimeUpper(LocalDateTime.from(upper));
-                participationRecord.setTimeUpperTz(resolveTimeZone(upper));
+    private void uploadTemplates() {
+        var contentHash = DSL.md5(TEMPLATE_STORE.CONTENT);
+        var templateIds = corpus.getTemplates().stream()
+                .map(PreparedTemplate::getTemplateId)
+                .collect(Collectors.toList());
+        var existingHashes = dsl.select(TEMPLATE_STORE.TEMPLATE_ID, contentHash)
+                .from(TEMPLATE_STORE)
+                .where(TEMPLATE_STORE.TEMPLATE_ID.in(templateIds))
+                .fetchMap(TEMPLATE_STORE.TEMPLATE_ID, contentHash);
+
+        for (var template : corpus.getTemplates()) {
+            var existingHash = existingHashes.get(template.getTemplateId());
+
+            if (existingHash == null) {
+                var templateStoreRecord = dsl.newRecord(TEMPLATE_STORE);
+                templateStoreRecord.setId(UUID.randomUUID());
+                templateStoreRecord.setTemplateId(template.getTemplateId());
+                templateStoreRecord.setContent(template.getContent().toString());
+                templateStoreRecord.setSysTransaction(LocalDateTime.now());
+                templateStoreRecord.store();
+            } else if (!existingHash.equals(template.getHash())) {
+                dsl.update(TEMPLATE_STORE)
+                        .set(TEMPLATE_STORE.CONTENT, template.getContent().toString())
+                        .set(TEMPLATE_STORE.SYS_TRANSACTION, LocalDateTime.now())
+                        .where(TEMPLATE_STORE.TEMPLATE_ID.eq(template.getTemplateId()))
+                        .execute();
+                log.info("Template {} updated", template.getTemplateId());
+            } else {
+                log.info("Template {} already exists", template.getTemplateId());
             }
-            participationRecord.store();
         }
     }
 
-    /**
-     * Creates a {@link ContributionRecord} of the given EHR.
-     */
-    private UUID createContribution(UUID ehrId, ContributionDataType contributionType, String auditDetailsDescription) {
-        var contributionRecord = dsl.newRecord(CONTRIBUTION);
-        contributionRecord.setEhrId(ehrId);
-        contributionRecord.setContributionType(contributionType);
-        contributionRecord.setState(ContributionState.complete);
-        contributionRecord.setHasAudit(createAuditDetails(auditDetailsDescription));
-        contributionRecord.store();
-        return contributionRecord.getId();
-    }
-
-    /**
-     * Creates an {@link AuditDetailsRecord} with the given description.
-     */
-    private UUID createAuditDetails(String description) {
-        var auditDetailsRecord = dsl.newRecord(AUDIT_DETAILS);
-        auditDetailsRecord.setSystemId(systemId);
-        auditDetailsRecord.setCommitter(committerId);
-        auditDetailsRecord.setTimeCommitted(LocalDateTime.now());
-        auditDetailsRecord.setTimeCommittedTzid(zoneId);
-        auditDetailsRecord.setChangeType(ContributionChangeType.creation);
-        auditDetailsRecord.setDescription(description);
-        auditDetailsRecord.store();
-        return auditDetailsRecord.getId();
-    }
-
-    private DvCodedTextRecord createDvCodedText(DvText dvText) {
-        if (dvText == null) {
-            return null;
-        }
-
-        var dvCodedTextRecord = new DvCodedTextRecord();
-        dvCodedTextRecord.setValue(dvText.getValue());
-        dvCodedTextRecord.setFormatting(dvText.getFormatting());
-        dvCodedTextRecord.setLanguage(createCodePhrase(dvText.getLanguage()));
-        dvCodedTextRecord.setEncoding(createCodePhrase(dvText.getEncoding()));
-        dvCodedTextRecord.setTermMapping(createTermMappings(dvText.getMappings()));
-
-        if (dvText instanceof DvCodedText) {
-            dvCodedTextRecord.setDefiningCode(createCodePhrase(((DvCodedText) dvText).getDefiningCode()));
-        }
-
-        return dvCodedTextRecord;
-    }
-
-    private CodePhraseRecord createCodePhrase(CodePhrase codePhrase) {
-        if (codePhrase == null) {
-            return null;
-        }
-        return new CodePhraseRecord(codePhrase.getTerminologyId().getValue(), codePhrase.getCodeString());
-    }
-
-    private String[] createTermMappings(List<TermMapping> termMappings) {
-        if (CollectionUtils.isEmpty(termMappings)) {
-            return new String[0];
-        }
-
-        return termMappings.stream()
-                .map(termMapping -> {
-                    String result = termMapping.getMatch() + "|";
-
-                    if (termMapping.getPurpose() != null) {
-                        result += termMapping.getPurpose().getValue() + "|";
-                    }
-
-                    result += termMapping.getPurpose().getDefiningCode().getTerminologyId().getValue() + "|" +
-                            termMapping.getPurpose().getDefiningCode().getCodeString() + "|" +
-                            termMapping.getTarget().getTerminologyId().getValue() + "|" +
-                            termMapping.getTarget().getCodeString();
-
-                    return result;
-                })
-                .toArray(String[]::new);
-    }
-
     private Integer getTerritory(String code) {
         return dsl.fetchOptional(TERRITORY, TERRITORY.TWOLETTER.eq(code))
                 .map(TerritoryRecord::getCode)
                 .orElseThrow(() -> new IllegalArgumentException("Territory " + code + " not found"));
     }
-
-    private EntryType resolveEntryType(Composition composition) {
-        if (CollectionUtils.isEmpty(composition.getContent())) {
-            return EntryType.proxy; // FIXME: not sure which value to return
-        }
-
-        var contentItem = composition.getContent().get(0);
-        if (contentItem instanceof AdminEntry) {
-            return EntryType.admin;
-        } else if (contentItem instanceof CareEntry) {
-            return EntryType.care_entry;
-        } else if (contentItem instanceof Section) {
-            return EntryType.section;
-        } else {
-            return EntryType.proxy; // FIXME: not sure which value to return
-        }
-    }
-
-    private String resolveTimeZone(TemporalAccessor temporal) {
-        if (temporal == null) {
-            return null;
-        }
-
-        if (temporal instanceof ZonedDateTime) {
-            return ((ZonedDateTime) temporal).getZone().toString();
-        } else if (temporal instanceof OffsetDateTime) {
-            return ((OffsetDateTime) temporal).getOffset().toString();
-        } else {
-            return zoneId;
-        }
-    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.benchmark;
+
+import org.ehrbase.testdata.loader.LoaderException;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.ehrbase.testdata.loader.jooq.tables.Ehr.EHR_;
+import static org.ehrbase.testdata.loader.jooq.tables.EventContext.EVENT_CONTEXT;
+import static org.ehrbase.testdata.loader.jooq.tables.TemplateStore.TEMPLATE_STORE;
+
+/**
+ * Query parameters sampled from the database before the benchmark starts.
+ *
+ * @since 1.0
+ */
+public class BenchmarkParameters {
+
+    private final List<UUID> ehrIds;
+
+    private final List<String> templateIds;
+
+    private final List<LocalDateTime> startTimes;
+
+    private BenchmarkParameters(List<UUID> ehrIds, List<String> templateIds, List<LocalDateTime> startTimes) {
+        this.ehrIds = ehrIds;
+        this.templateIds = templateIds;
+        this.startTimes = startTimes;
+    }
+
+    public static BenchmarkParameters sample(DSLContext dsl, int sampleSize) {
+        var ehrIds = dsl.select(EHR_.ID)
+                .from(EHR_)
+                .orderBy(DSL.rand())
+                .limit(sampleSize)
+                .fetch(EHR_.ID);
+
+        var templateIds = dsl.select(TEMPLATE_STORE.TEMPLATE_ID)
+                .from(TEMPLATE_STORE)
+                .fetch(TEMPLATE_STORE.TEMPLATE_ID);
+
+        // Start times are copied from the sample compositions, so there are only a few distinct values
+        var startTimes = dsl.selectDistinct(EVENT_CONTEXT.START_TIME)
+                .from(EVENT_CONTEXT)
+                .where(EVENT_CONTEXT.START_TIME.isNotNull())
+                .limit(sampleSize)
+                .fetch(EVENT_CONTEXT.START_TIME);
+
+        if (ehrIds.isEmpty() || templateIds.isEmpty() || startTimes.isEmpty()) {
+            throw new LoaderException("Database does not contain any test data");
+        }
+        return new BenchmarkParameters(ehrIds, templateIds, startTimes);
+    }
+
+    public UUID randomEhrId() {
+        return ehrIds.get(ThreadLocalRandom.current().nextInt(ehrIds.size()));
+    }
+
+    public String randomTemplateId() {
+        return templateIds.get(ThreadLocalRandom.current().nextInt(templateIds.size()));
+    }
+
+    /**
+     * Returns the start of a time window of the given length that contains at least one existing start time.
+     */
+    public LocalDateTime randomWindowStart(Duration window) {
+        var random = ThreadLocalRandom.current();
+        var startTime = startTimes.get(random.nextInt(startTimes.size()));
+        return startTime.minusSeconds(random.nextLong(window.getSeconds() + 1));
+    }
+
+    public int getEhrCount() {
+        return ehrIds.size();
+    }
+}
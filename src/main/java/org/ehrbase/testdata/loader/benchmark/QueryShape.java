@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.benchmark;
+
+import org.ehrbase.testdata.loader.config.LoaderProperties;
+import org.jooq.DSLContext;
+import org.jooq.ResultQuery;
+import org.jooq.impl.DSL;
+
+import static org.ehrbase.testdata.loader.jooq.tables.Composition.COMPOSITION;
+import static org.ehrbase.testdata.loader.jooq.tables.Entry.ENTRY;
+import static org.ehrbase.testdata.loader.jooq.tables.EventContext.EVENT_CONTEXT;
+import static org.ehrbase.testdata.loader.jooq.tables.PartyIdentified.PARTY_IDENTIFIED;
+import static org.ehrbase.testdata.loader.jooq.tables.Status.STATUS;
+
+/**
+ * Read query shapes issued by EHRbase against the tables populated by the loader.
+ *
+ * @since 1.0
+ */
+public enum QueryShape {
+
+    /**
+     * All compositions of an EHR with their composer, entry and start time.
+     */
+    COMPOSITIONS_PER_EHR {
+        @Override
+        public ResultQuery<?> create(DSLContext dsl, BenchmarkParameters parameters,
+                                     LoaderProperties.Benchmark properties) {
+            return dsl.select(COMPOSITION.ID, PARTY_IDENTIFIED.NAME, ENTRY.TEMPLATE_ID, ENTRY.ENTRY_,
+                            EVENT_CONTEXT.START_TIME)
+                    .from(COMPOSITION)
+                    .join(ENTRY).on(ENTRY.COMPOSITION_ID.eq(COMPOSITION.ID))
+                    .join(PARTY_IDENTIFIED).on(PARTY_IDENTIFIED.ID.eq(COMPOSITION.COMPOSER))
+                    .leftJoin(EVENT_CONTEXT).on(EVENT_CONTEXT.COMPOSITION_ID.eq(COMPOSITION.ID))
+                    .where(COMPOSITION.EHR_ID.eq(parameters.randomEhrId()));
+        }
+    },
+
+    /**
+     * Entries of a template within an EHR.
+     */
+    ENTRIES_BY_TEMPLATE {
+        @Override
+        public ResultQuery<?> create(DSLContext dsl, BenchmarkParameters parameters,
+                                     LoaderProperties.Benchmark properties) {
+            return dsl.select(ENTRY.COMPOSITION_ID, ENTRY.ENTRY_)
+                    .from(ENTRY)
+                    .join(COMPOSITION).on(COMPOSITION.ID.eq(ENTRY.COMPOSITION_ID))
+                    .where(COMPOSITION.EHR_ID.eq(parameters.randomEhrId()))
+                    .and(ENTRY.TEMPLATE_ID.eq(parameters.randomTemplateId()));
+        }
+    },
+
+    /**
+     * Entries of a template matching a SQL/JSON path predicate on {@code entry.entry}.
+     */
+    ENTRY_JSON_PATH {
+        @Override
+        public int getMinServerVersion() {
+            // jsonb_path_exists was added in PostgreSQL 12
+            return 120000;
+        }
+
+        @Override
+        public ResultQuery<?> create(DSLContext dsl, BenchmarkParameters parameters,
+                                     LoaderProperties.Benchmark properties) {
+            return dsl.select(ENTRY.COMPOSITION_ID)
+                    .from(ENTRY)
+                    .where(ENTRY.TEMPLATE_ID.eq(parameters.randomTemplateId()))
+                    .and(DSL.condition("jsonb_path_exists({0}, cast({1} as jsonpath))", ENTRY.ENTRY_,
+                            DSL.val(properties.getJsonPath())))
+                    .limit(properties.getLimit());
+        }
+    },
+
+    /**
+     * Compositions whose event context starts within a time window.
+     */
+    START_TIME_RANGE {
+        @Override
+        public ResultQuery<?> create(DSLContext dsl, BenchmarkParameters parameters,
+                                     LoaderProperties.Benchmark properties) {
+            var from = parameters.randomWindowStart(properties.getTimeWindow());
+            return dsl.select(EVENT_CONTEXT.COMPOSITION_ID, EVENT_CONTEXT.START_TIME)
+                    .from(EVENT_CONTEXT)
+                    .where(EVENT_CONTEXT.START_TIME.between(from, from.plus(properties.getTimeWindow())))
+                    .limit(properties.getLimit());
+        }
+    },
+
+    /**
+     * EHR_STATUS of an EHR with its subject.
+     */
+    EHR_STATUS {
+        @Override
+        public ResultQuery<?> create(DSLContext dsl, BenchmarkParameters parameters,
+                                     LoaderProperties.Benchmark properties) {
+            return dsl.select(STATUS.ID, STATUS.OTHER_DETAILS, PARTY_IDENTIFIED.PARTY_REF_VALUE)
+                    .from(STATUS)
+                    .join(PARTY_IDENTIFIED).on(PARTY_IDENTIFIED.ID.eq(STATUS.PARTY))
+                    .where(STATUS.EHR_ID.eq(parameters.randomEhrId()));
+        }
+    };
+
+    /**
+     * Returns the lowest PostgreSQL version supporting the query, in the format of {@code server_version_num}.
+     */
+    public int getMinServerVersion() {
+        return 0;
+    }
+
+    public abstract ResultQuery<?> create(DSLContext dsl, BenchmarkParameters parameters,
+                                          LoaderProperties.Benchmark properties);
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.ehrbase.testdata.loader.LoaderException;
+import org.ehrbase.testdata.loader.config.LoaderProperties;
+import org.ehrbase.testdata.loader.utils.HistogramUtils;
+import org.ehrbase.testdata.loader.utils.WorkerUtils;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the configured {@link QueryShape}s with concurrent clients against the loaded database and reports throughput
+ * and latency percentiles per query shape.
+ *
+ * @since 1.0
+ */
+public class ReadBenchmark {
+
+    private final Logger log = LoggerFactory.getLogger(ReadBenchmark.class);
+
+    private final DSLContext dsl;
+    private final LoaderProperties.Benchmark properties;
+
+    private final Map<QueryShape, Recorder> recorders = new EnumMap<>(QueryShape.class);
+    private final Map<QueryShape, AtomicLong> errors = new EnumMap<>(QueryShape.class);
+
+    public ReadBenchmark(DSLContext dsl, LoaderProperties.Benchmark properties) {
+        this.dsl = dsl;
+        this.properties = properties;
+    }
+
+    public void run() {
+        int serverVersion = dsl.resultQuery("select current_setting('server_version_num')::int")
+                .fetchOne(0, Integer.class);
+        var shapes = properties.getQueries().stream()
+                .distinct()
+                .filter(shape -> {
+                    if (serverVersion < shape.getMinServerVersion()) {
+                        log.warn("Skipping {}, not supported by server version {}", shape, serverVersion);
+                        return false;
+                    }
+                    return true;
+                })
+                .collect(Collectors.toList());
+        if (shapes.isEmpty()) {
+            throw new LoaderException("No supported query shape configured for the read benchmark");
+        }
+        shapes.forEach(shape -> {
+            recorders.put(shape, new Recorder(HistogramUtils.MAX_LATENCY_MICROS, 3));
+            errors.put(shape, new AtomicLong());
+        });
+
+        var parameters = BenchmarkParameters.sample(dsl, properties.getSampleSize());
+        log.info("Start read benchmark... ({} clients, {} warmup, {} measurement, {} sampled EHRs, queries: {})",
+                properties.getClients(), properties.getWarmup(), properties.getDuration(), parameters.getEhrCount(),
+                shapes);
+
+        long start = System.nanoTime();
+        long measurementStart = start + properties.getWarmup().toNanos();
+        long end = measurementStart + properties.getDuration().toNanos();
+
+        WorkerUtils.runWorkers(properties.getClients(), () -> {
+            long now;
+            while ((now = System.nanoTime()) - end < 0 && !Thread.currentThread().isInterrupted()) {
+                var shape = shapes.get(ThreadLocalRandom.current().nextInt(shapes.size()));
+                execute(shape, parameters, now - measurementStart >= 0);
+            }
+        });
+
+        report(shapes, properties.getDuration().toMillis() / 1000.0);
+    }
+
+    private void execute(QueryShape shape, BenchmarkParameters parameters, boolean measured) {
+        var query = shape.create(dsl, parameters, properties);
+        long start = System.nanoTime();
+        try {
+            query.fetch();
+        } catch (RuntimeException e) {
+            // Log the first failure of each shape only, a broken query fails on every execution
+            if (errors.get(shape).getAndIncrement() == 0) {
+                log.warn("Failed to execute query {}, further failures are only counted", shape, e);
+            }
+            return;
+        }
+        if (measured) {
+            long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            recorders.get(shape).recordValue(Math.min(latency, HistogramUtils.MAX_LATENCY_MICROS));
+        }
+    }
+
+    private void report(List<QueryShape> shapes, double seconds) {
+        Histogram total = HistogramUtils.newHistogram();
+        for (var shape : shapes) {
+            var histogram = recorders.get(shape).getIntervalHistogram();
+            total.add(histogram);
+            log.info("{}: {} queries ({} /s), {} errors, {}", shape, histogram.getTotalCount(),
+                    String.format("%.1f", histogram.getTotalCount() / seconds), errors.get(shape).get(),
+                    HistogramUtils.formatPercentiles(histogram));
+        }
+        long totalErrors = errors.values().stream().mapToLong(AtomicLong::get).sum();
+        log.info("Read benchmark finished: {} queries ({} /s), {} errors, {}", total.getTotalCount(),
+                String.format("%.1f", total.getTotalCount() / seconds), totalErrors,
+                HistogramUtils.formatPercentiles(total));
+    }
+}
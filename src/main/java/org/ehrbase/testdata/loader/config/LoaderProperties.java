@@ -16,7 +16,12 @@
 
 package org.ehrbase.testdata.loader.config;
 
+import org.ehrbase.testdata.loader.benchmark.QueryShape;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
 
 /**
  * @author Renaud Subiger
@@ -29,6 +34,46 @@ public class LoaderProperties {
 
     private Integer compositionPerEhr = 200;
 
+    private Mode mode = Mode.LOAD;
+
+    private Integer workers = 16;
+
+    private Writer writer = Writer.JOOQ;
+
+    private WriteOrder writeOrder = WriteOrder.INTERLEAVED;
+
+    private Integer ehrRangeSize = 10;
+
+    private DataSize maxBufferedPayload = DataSize.ofMegabytes(16);
+
+    private Integer fillfactor;
+
+    private boolean cluster = false;
+
+    private Double targetRate = 10.0;
+
+    private Duration duration = Duration.ofHours(1);
+
+    private Double newEhrRatio = 0.05;
+
+    private Duration reportInterval = Duration.ofSeconds(10);
+
+    private String runId;
+
+    private String purge;
+
+    private Integer purgeBatchSize = 1000;
+
+    private String snapshot;
+
+    private String buildSnapshot;
+
+    private boolean estimate = false;
+
+    private Double estimateSampleRatio = 0.001;
+
+    private final Benchmark benchmark = new Benchmark();
+
     public Integer getEhr() {
         return ehr;
     }
@@ -44,4 +89,301 @@ public class LoaderProperties {
     public void setCompositionPerEhr(Integer compositionPerEhr) {
         this.compositionPerEhr = compositionPerEhr;
     }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Integer getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(Integer workers) {
+        this.workers = workers;
+    }
+
+    public Writer getWriter() {
+        return writer;
+    }
+
+    public void setWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public WriteOrder getWriteOrder() {
+        return writeOrder;
+    }
+
+    public void setWriteOrder(WriteOrder writeOrder) {
+        this.writeOrder = writeOrder;
+    }
+
+    public Integer getEhrRangeSize() {
+        return ehrRangeSize;
+    }
+
+    public void setEhrRangeSize(Integer ehrRangeSize) {
+        this.ehrRangeSize = ehrRangeSize;
+    }
+
+    public DataSize getMaxBufferedPayload() {
+        return maxBufferedPayload;
+    }
+
+    public void setMaxBufferedPayload(DataSize maxBufferedPayload) {
+        this.maxBufferedPayload = maxBufferedPayload;
+    }
+
+    public Integer getFillfactor() {
+        return fillfactor;
+    }
+
+    public void setFillfactor(Integer fillfactor) {
+        this.fillfactor = fillfactor;
+    }
+
+    public boolean isCluster() {
+        return cluster;
+    }
+
+    public void setCluster(boolean cluster) {
+        this.cluster = cluster;
+    }
+
+    public Double getTargetRate() {
+        return targetRate;
+    }
+
+    public void setTargetRate(Double targetRate) {
+        this.targetRate = targetRate;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Duration duration) {
+        this.duration = duration;
+    }
+
+    public Double getNewEhrRatio() {
+        return newEhrRatio;
+    }
+
+    public void setNewEhrRatio(Double newEhrRatio) {
+        this.newEhrRatio = newEhrRatio;
+    }
+
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+
+    public void setReportInterval(Duration reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public String getPurge() {
+        return purge;
+    }
+
+    public void setPurge(String purge) {
+        this.purge = purge;
+    }
+
+    public Integer getPurgeBatchSize() {
+        return purgeBatchSize;
+    }
+
+    public void setPurgeBatchSize(Integer purgeBatchSize) {
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(String snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String getBuildSnapshot() {
+        return buildSnapshot;
+    }
+
+    public void setBuildSnapshot(String buildSnapshot) {
+        this.buildSnapshot = buildSnapshot;
+    }
+
+    public boolean isEstimate() {
+        return estimate;
+    }
+
+    public void setEstimate(boolean estimate) {
+        this.estimate = estimate;
+    }
+
+    public Double getEstimateSampleRatio() {
+        return estimateSampleRatio;
+    }
+
+    public void setEstimateSampleRatio(Double estimateSampleRatio) {
+        this.estimateSampleRatio = estimateSampleRatio;
+    }
+
+    public Benchmark getBenchmark() {
+        return benchmark;
+    }
+
+    public enum Mode {
+
+        /**
+         * Inserts {@code ehr} EHRs with {@code compositionPerEhr} compositions each, then exits.
+         */
+        LOAD,
+
+        /**
+         * Inserts compositions at {@code targetRate} per second for {@code duration}.
+         */
+        SOAK,
+
+        /**
+         * Runs the read benchmark against the data already present in the database.
+         */
+        BENCHMARK
+    }
+
+    public enum Writer {
+
+        /**
+         * Writes jOOQ records with one batch per table.
+         */
+        JOOQ,
+
+        /**
+         * Binds values directly to prepared statements held for the whole lifetime of the writer.
+         */
+        JDBC
+    }
+
+    public enum WriteOrder {
+
+        /**
+         * Each writer flushes after every composition, rows of concurrently written EHRs are interleaved.
+         */
+        INTERLEAVED,
+
+        /**
+         * Each writer flushes the rows of {@code ehrRangeSize} consecutive EHRs together, table by table, or earlier
+         * at an EHR boundary once {@code maxBufferedPayload} is reached.
+         */
+        EHR
+    }
+
+    public static class Benchmark {
+
+        /**
+         * Whether to run the read benchmark after loading the test data.
+         */
+        private boolean enabled = false;
+
+        private List<QueryShape> queries = List.of(QueryShape.values());
+
+        private Integer clients = 8;
+
+        private Duration warmup = Duration.ofSeconds(10);
+
+        private Duration duration = Duration.ofMinutes(1);
+
+        private Integer sampleSize = 1000;
+
+        private Integer limit = 100;
+
+        private String jsonPath = "$.**.magnitude ? (@ > 100)";
+
+        private Duration timeWindow = Duration.ofDays(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<QueryShape> getQueries() {
+            return queries;
+        }
+
+        public void setQueries(List<QueryShape> queries) {
+            this.queries = queries;
+        }
+
+        public Integer getClients() {
+            return clients;
+        }
+
+        public void setClients(Integer clients) {
+            this.clients = clients;
+        }
+
+        public Duration getWarmup() {
+            return warmup;
+        }
+
+        public void setWarmup(Duration warmup) {
+            this.warmup = warmup;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Duration duration) {
+            this.duration = duration;
+        }
+
+        public Integer getSampleSize() {
+            return sampleSize;
+        }
+
+        public void setSampleSize(Integer sampleSize) {
+            this.sampleSize = sampleSize;
+        }
+
+        public Integer getLimit() {
+            return limit;
+        }
+
+        public void setLimit(Integer limit) {
+            this.limit = limit;
+        }
+
+        public String getJsonPath() {
+            return jsonPath;
+        }
+
+        public void setJsonPath(String jsonPath) {
+            this.jsonPath = jsonPath;
+        }
+
+        public Duration getTimeWindow() {
+            return timeWindow;
+        }
+
+        public void setTimeWindow(Duration timeWindow) {
+            this.timeWindow = timeWindow;
+        }
+    }
 }
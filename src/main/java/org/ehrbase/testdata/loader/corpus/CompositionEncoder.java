@@ -0,0 +1,220 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+import com.nedap.archie.rm.composition.AdminEntry;
+import com.nedap.archie.rm.composition.CareEntry;
+import com.nedap.archie.rm.composition.Composition;
+import com.nedap.archie.rm.composition.EventContext;
+import com.nedap.archie.rm.composition.Section;
+import com.nedap.archie.rm.datatypes.CodePhrase;
+import com.nedap.archie.rm.datavalues.DvCodedText;
+import com.nedap.archie.rm.datavalues.DvText;
+import com.nedap.archie.rm.datavalues.TermMapping;
+import com.nedap.archie.rm.generic.Participation;
+import com.nedap.archie.rm.generic.PartyIdentified;
+import com.nedap.archie.rm.generic.PartyProxy;
+import org.ehrbase.serialisation.dbencoding.RawJson;
+import org.ehrbase.testdata.loader.jooq.enums.EntryType;
+import org.ehrbase.testdata.loader.jooq.udt.records.CodePhraseRecord;
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes a {@link Composition} once into a {@link PreparedComposition}, so that the Archie object graph can be
+ * discarded before any data is loaded.
+ *
+ * @since 1.0
+ */
+public class CompositionEncoder {
+
+    private final RawJson rawJson = new RawJson();
+
+    private final PayloadStore payloadStore;
+
+    private final String zoneId;
+
+    public CompositionEncoder(PayloadStore payloadStore, String zoneId) {
+        this.payloadStore = payloadStore;
+        this.zoneId = zoneId;
+    }
+
+    public PreparedComposition encode(Composition composition) {
+        Assert.notNull(composition.getArchetypeDetails().getTemplateId(), "Template Id must not be null");
+
+        return new PreparedComposition(
+                composition.getArchetypeDetails().getTemplateId().getValue(),
+                composition.getArchetypeNodeId(),
+                composition.getArchetypeDetails().getRmVersion(),
+                composition.getLanguage().getCodeString(),
+                composition.getTerritory().getCodeString(),
+                getPartyName(composition.getComposer()),
+                resolveEntryType(composition),
+                createDvCodedText(composition.getCategory()),
+                createDvCodedText(composition.getName()),
+                payloadStore.put(rawJson.marshal(composition)),
+                composition.getContext() != null ? encode(composition.getContext()) : null);
+    }
+
+    private PreparedEventContext encode(EventContext eventContext) {
+        var startTime = eventContext.getStartTime().getValue();
+
+        LocalDateTime endTime = null;
+        String endTimeTzid = null;
+        if (eventContext.getEndTime() != null) {
+            endTime = LocalDateTime.from(eventContext.getEndTime().getValue());
+            endTimeTzid = resolveTimeZone(eventContext.getEndTime().getValue());
+        }
+
+        Payload otherContext = null;
+        if (eventContext.getOtherContext() != null && !CollectionUtils.isEmpty(eventContext.getOtherContext().getItems())) {
+            otherContext = payloadStore.put(rawJson.marshal(eventContext.getOtherContext()));
+        }
+
+        return new PreparedEventContext(
+                LocalDateTime.from(startTime),
+                resolveTimeZone(startTime),
+                endTime,
+                endTimeTzid,
+                eventContext.getLocation(),
+                createDvCodedText(eventContext.getSetting()),
+                otherContext,
+                eventContext.getParticipations().stream()
+                        .map(this::encode)
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    private PreparedParticipation encode(Participation participation) {
+        LocalDateTime timeLower = null;
+        String timeLowerTz = null;
+        if (participation.getTime() != null && participation.getTime().getLower() != null) {
+            var lower = participation.getTime().getLower().getValue();
+            timeLower = LocalDateTime.from(lower);
+            timeLowerTz = resolveTimeZone(lower);
+        }
+
+        LocalDateTime timeUpper = null;
+        String timeUpperTz = null;
+        if (participation.getTime() != null && participation.getTime().getUpper() != null) {
+            var upper = participation.getTime().getUpper().getValue();
+            timeUpper = LocalDateTime.from(upper);
+            timeUpperTz = resolveTimeZone(upper);
+        }
+
+        return new PreparedParticipation(
+                getPartyName(participation.getPerformer()),
+                createDvCodedText(participation.getFunction()),
+                createDvCodedText(participation.getMode()),
+                timeLower, timeLowerTz, timeUpper, timeUpperTz);
+    }
+
+    private String getPartyName(PartyProxy partyProxy) {
+        if (partyProxy instanceof PartyIdentified) {
+            return ((PartyIdentified) partyProxy).getName();
+        } else {
+            throw new IllegalArgumentException("Unsupported PartyProxy implementation");
+        }
+    }
+
+    private DvCodedTextRecord createDvCodedText(DvText dvText) {
+        if (dvText == null) {
+            return null;
+        }
+
+        var dvCodedTextRecord = new DvCodedTextRecord();
+        dvCodedTextRecord.setValue(dvText.getValue());
+        dvCodedTextRecord.setFormatting(dvText.getFormatting());
+        dvCodedTextRecord.setLanguage(createCodePhrase(dvText.getLanguage()));
+        dvCodedTextRecord.setEncoding(createCodePhrase(dvText.getEncoding()));
+        dvCodedTextRecord.setTermMapping(createTermMappings(dvText.getMappings()));
+
+        if (dvText instanceof DvCodedText) {
+            dvCodedTextRecord.setDefiningCode(createCodePhrase(((DvCodedText) dvText).getDefiningCode()));
+        }
+
+        return dvCodedTextRecord;
+    }
+
+    private CodePhraseRecord createCodePhrase(CodePhrase codePhrase) {
+        if (codePhrase == null) {
+            return null;
+        }
+        return new CodePhraseRecord(codePhrase.getTerminologyId().getValue(), codePhrase.getCodeString());
+    }
+
+    private String[] createTermMappings(List<TermMapping> termMappings) {
+        if (CollectionUtils.isEmpty(termMappings)) {
+            return new String[0];
+        }
+
+        return termMappings.stream()
+                .map(termMapping -> {
+                    String result = termMapping.getMatch() + "|";
+
+                    if (termMapping.getPurpose() != null) {
+                        result += termMapping.getPurpose().getValue() + "|";
+                    }
+
+                    result += termMapping.getPurpose().getDefiningCode().getTerminologyId().getValue() + "|" +
+                            termMapping.getPurpose().getDefiningCode().getCodeString() + "|" +
+                            termMapping.getTarget().getTerminologyId().getValue() + "|" +
+                            termMapping.getTarget().getCodeString();
+
+                    return result;
+                })
+                .toArray(String[]::new);
+    }
+
+    private EntryType resolveEntryType(Composition composition) {
+        if (CollectionUtils.isEmpty(composition.getContent())) {
+            return EntryType.proxy; // FIXME: not sure which value to return
+        }
+
+        var contentItem = composition.getContent().get(0);
+        if (contentItem instanceof AdminEntry) {
+            return EntryType.admin;
+        } else if (contentItem instanceof CareEntry) {
+            return EntryType.care_entry;
+        } else if (contentItem instanceof Section) {
+            return EntryType.section;
+        } else {
+            return EntryType.proxy; // FIXME: not sure which value to return
+        }
+    }
+
+    private String resolveTimeZone(TemporalAccessor temporal) {
+        if (temporal == null) {
+            return null;
+        }
+
+        if (temporal instanceof ZonedDateTime) {
+            return ((ZonedDateTime) temporal).getZone().toString();
+        } else if (temporal instanceof OffsetDateTime) {
+            return ((OffsetDateTime) temporal).getOffset().toString();
+        } else {
+            return zoneId;
+        }
+    }
+}
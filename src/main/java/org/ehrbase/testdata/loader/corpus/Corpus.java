@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Set of templates, prepared compositions and EHR_STATUS details used to generate test data.
+ *
+ * @since 1.0
+ */
+public class Corpus {
+
+    private final PayloadStore payloadStore;
+
+    private final List<PreparedTemplate> templates = new ArrayList<>();
+
+    private final List<PreparedComposition> compositions = new ArrayList<>();
+
+    private Payload ehrStatusOtherDetails;
+
+    public Corpus(PayloadStore payloadStore) {
+        this.payloadStore = payloadStore;
+    }
+
+    public PayloadStore getPayloadStore() {
+        return payloadStore;
+    }
+
+    public void addTemplate(PreparedTemplate template) {
+        templates.add(template);
+    }
+
+    public List<PreparedTemplate> getTemplates() {
+        return Collections.unmodifiableList(templates);
+    }
+
+    public void addComposition(PreparedComposition composition) {
+        compositions.add(composition);
+    }
+
+    public List<PreparedComposition> getCompositions() {
+        return Collections.unmodifiableList(compositions);
+    }
+
+    public PreparedComposition randomComposition() {
+        return compositions.get(ThreadLocalRandom.current().nextInt(compositions.size()));
+    }
+
+    public Payload getEhrStatusOtherDetails() {
+        return ehrStatusOtherDetails;
+    }
+
+    public void setEhrStatusOtherDetails(Payload ehrStatusOtherDetails) {
+        this.ehrStatusOtherDetails = ehrStatusOtherDetails;
+    }
+}
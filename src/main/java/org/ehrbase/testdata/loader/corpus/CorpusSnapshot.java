@@ -0,0 +1,365 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+import org.ehrbase.testdata.loader.LoaderException;
+import org.ehrbase.testdata.loader.jooq.enums.EntryType;
+import org.ehrbase.testdata.loader.jooq.udt.records.CodePhraseRecord;
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary snapshot of a prepared {@link Corpus}.
+ * <p>
+ * The file starts with a small header and a metadata section describing templates and compositions, followed by the
+ * payload section holding the encoded JSON and template contents. The file is memory-mapped when read: payloads are
+ * slices of the mapping and are only paged in when they are actually written to the database.
+ *
+ * @since 1.0
+ */
+public class CorpusSnapshot {
+
+    private static final int MAGIC = 0x54444c53; // "TDLS"
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 12;
+
+    private CorpusSnapshot() {
+    }
+
+    /**
+     * Writes the given corpus, prepared with {@code zoneId} as the time zone of date times without offset.
+     */
+    public static void write(Corpus corpus, String zoneId, Path path) {
+        var payloads = new ArrayList<Payload>();
+        var metadata = new ByteArrayOutputStream();
+
+        try (var out = new DataOutputStream(metadata)) {
+            var writer = new MetadataWriter(out, payloads);
+
+            out.writeUTF(zoneId);
+
+            out.writeInt(corpus.getTemplates().size());
+            for (var template : corpus.getTemplates()) {
+                out.writeUTF(template.getTemplateId());
+                out.writeUTF(template.getHash());
+                writer.writePayload(template.getContent());
+            }
+
+            writer.writePayload(corpus.getEhrStatusOtherDetails());
+
+            out.writeInt(corpus.getCompositions().size());
+            for (var composition : corpus.getCompositions()) {
+                writer.writeComposition(composition);
+            }
+        } catch (IOException e) {
+            throw new LoaderException("Failed to encode snapshot", e);
+        }
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(metadata.size())
+                    .flip();
+            writeFully(channel, header);
+            writeFully(channel, ByteBuffer.wrap(metadata.toByteArray()));
+            for (var payload : payloads) {
+                writeFully(channel, payload.buffer());
+            }
+        } catch (IOException e) {
+            throw new LoaderException("Failed to write snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Reads a corpus from the given snapshot.
+     *
+     * @throws LoaderException if the snapshot was built with another time zone than {@code zoneId}, since the time
+     *                         zone ids of date times without offset are resolved when the corpus is prepared
+     */
+    public static Corpus read(Path path, String zoneId) {
+        MappedByteBuffer mapping;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new LoaderException("Failed to read snapshot " + path, e);
+        }
+
+        if (mapping.getInt() != MAGIC || mapping.getInt() != VERSION) {
+            throw new LoaderException("Unsupported snapshot " + path);
+        }
+
+        var metadata = new byte[mapping.getInt()];
+        mapping.get(metadata);
+
+        var payloadSection = mapping.slice();
+        var corpus = new Corpus(new PayloadStore());
+
+        try (var in = new DataInputStream(new ByteArrayInputStream(metadata))) {
+            var reader = new MetadataReader(in, payloadSection, corpus.getPayloadStore());
+
+            var snapshotZoneId = in.readUTF();
+            if (!snapshotZoneId.equals(zoneId)) {
+                throw new LoaderException(String.format("Snapshot %s was built in time zone %s, not %s: rebuild it or "
+                        + "run with -Duser.timezone=%s", path, snapshotZoneId, zoneId, snapshotZoneId));
+            }
+
+            int templateCount = in.readInt();
+            for (int i = 0; i < templateCount; i++) {
+                corpus.addTemplate(new PreparedTemplate(in.readUTF(), in.readUTF(), reader.readPayload()));
+            }
+
+            corpus.setEhrStatusOtherDetails(reader.readPayload());
+
+            int compositionCount = in.readInt();
+            for (int i = 0; i < compositionCount; i++) {
+                corpus.addComposition(reader.readComposition());
+            }
+        } catch (IOException e) {
+            throw new LoaderException("Failed to decode snapshot " + path, e);
+        }
+        return corpus;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static class MetadataWriter {
+
+        private final DataOutputStream out;
+
+        private final List<Payload> payloads;
+
+        private int offset;
+
+        MetadataWriter(DataOutputStream out, List<Payload> payloads) {
+            this.out = out;
+            this.payloads = payloads;
+        }
+
+        void writeComposition(PreparedComposition composition) throws IOException {
+            writeString(composition.getTemplateId());
+            writeString(composition.getArchetypeNodeId());
+            writeString(composition.getRmVersion());
+            writeString(composition.getLanguage());
+            writeString(composition.getTerritory());
+            writeString(composition.getComposerName());
+            out.writeUTF(composition.getEntryType().name());
+            writeDvCodedText(composition.getCategory());
+            writeDvCodedText(composition.getName());
+            writePayload(composition.getEntry());
+
+            var context = composition.getContext();
+            out.writeBoolean(context != null);
+            if (context != null) {
+                writeDateTime(context.getStartTime());
+                writeString(context.getStartTimeTzid());
+                writeDateTime(context.getEndTime());
+                writeString(context.getEndTimeTzid());
+                writeString(context.getLocation());
+                writeDvCodedText(context.getSetting());
+                writePayload(context.getOtherContext());
+
+                out.writeInt(context.getParticipations().size());
+                for (var participation : context.getParticipations()) {
+                    writeString(participation.getPerformerName());
+                    writeDvCodedText(participation.getFunction());
+                    writeDvCodedText(participation.getMode());
+                    writeDateTime(participation.getTimeLower());
+                    writeString(participation.getTimeLowerTz());
+                    writeDateTime(participation.getTimeUpper());
+                    writeString(participation.getTimeUpperTz());
+                }
+            }
+        }
+
+        void writePayload(Payload payload) throws IOException {
+            if (payload == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(offset);
+            out.writeInt(payload.length());
+            payloads.add(payload);
+            offset = Math.addExact(offset, payload.length());
+        }
+
+        private void writeDvCodedText(DvCodedTextRecord record) throws IOException {
+            out.writeBoolean(record != null);
+            if (record != null) {
+                writeString(record.getValue());
+                writeCodePhrase(record.getDefiningCode());
+                writeString(record.getFormatting());
+                writeCodePhrase(record.getLanguage());
+                writeCodePhrase(record.getEncoding());
+
+                var termMappings = record.getTermMapping();
+                out.writeInt(termMappings != null ? termMappings.length : -1);
+                if (termMappings != null) {
+                    for (var termMapping : termMappings) {
+                        writeString(termMapping);
+                    }
+                }
+            }
+        }
+
+        private void writeCodePhrase(CodePhraseRecord record) throws IOException {
+            out.writeBoolean(record != null);
+            if (record != null) {
+                writeString(record.getTerminologyIdValue());
+                writeString(record.getCodeString());
+            }
+        }
+
+        private void writeDateTime(LocalDateTime dateTime) throws IOException {
+            out.writeBoolean(dateTime != null);
+            if (dateTime != null) {
+                out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(dateTime.getNano());
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    private static class MetadataReader {
+
+        private final DataInputStream in;
+
+        private final ByteBuffer payloadSection;
+
+        private final PayloadStore payloadStore;
+
+        MetadataReader(DataInputStream in, ByteBuffer payloadSection, PayloadStore payloadStore) {
+            this.in = in;
+            this.payloadSection = payloadSection;
+            this.payloadStore = payloadStore;
+        }
+
+        PreparedComposition readComposition() throws IOException {
+            var templateId = readString();
+            var archetypeNodeId = readString();
+            var rmVersion = readString();
+            var language = readString();
+            var territory = readString();
+            var composerName = readString();
+            var entryType = EntryType.valueOf(in.readUTF());
+            var category = readDvCodedText();
+            var name = readDvCodedText();
+            var entry = readPayload();
+
+            PreparedEventContext context = null;
+            if (in.readBoolean()) {
+                var startTime = readDateTime();
+                var startTimeTzid = readString();
+                var endTime = readDateTime();
+                var endTimeTzid = readString();
+                var location = readString();
+                var setting = readDvCodedText();
+                var otherContext = readPayload();
+
+                int participationCount = in.readInt();
+                var participations = new ArrayList<PreparedParticipation>(participationCount);
+                for (int i = 0; i < participationCount; i++) {
+                    participations.add(new PreparedParticipation(readString(), readDvCodedText(), readDvCodedText(),
+                            readDateTime(), readString(), readDateTime(), readString()));
+                }
+
+                context = new PreparedEventContext(startTime, startTimeTzid, endTime, endTimeTzid, location, setting,
+                        otherContext, List.copyOf(participations));
+            }
+
+            return new PreparedComposition(templateId, archetypeNodeId, rmVersion, language, territory, composerName,
+                    entryType, category, name, entry, context);
+        }
+
+        Payload readPayload() throws IOException {
+            int offset = in.readInt();
+            if (offset < 0) {
+                return null;
+            }
+            int length = in.readInt();
+            return payloadStore.map(payloadSection.duplicate().position(offset).limit(offset + length).slice());
+        }
+
+        private DvCodedTextRecord readDvCodedText() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+
+            var record = new DvCodedTextRecord();
+            record.setValue(readString());
+            record.setDefiningCode(readCodePhrase());
+            record.setFormatting(readString());
+            record.setLanguage(readCodePhrase());
+            record.setEncoding(readCodePhrase());
+
+            int termMappingCount = in.readInt();
+            if (termMappingCount >= 0) {
+                var termMappings = new String[termMappingCount];
+                for (int i = 0; i < termMappingCount; i++) {
+                    termMappings[i] = readString();
+                }
+                record.setTermMapping(termMappings);
+            }
+            return record;
+        }
+
+        private CodePhraseRecord readCodePhrase() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            return new CodePhraseRecord(readString(), readString());
+        }
+
+        private LocalDateTime readDateTime() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        }
+
+        private String readString() throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+}
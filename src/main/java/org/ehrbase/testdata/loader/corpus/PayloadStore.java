@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only store that keeps payloads in direct {@link ByteBuffer} slabs, so that large encoded compositions do not
+ * add to the heap and are never touched by the garbage collector.
+ *
+ * @since 1.0
+ */
+public class PayloadStore {
+
+    private static final int SLAB_SIZE = 4 * 1024 * 1024;
+
+    private ByteBuffer slab = ByteBuffer.allocateDirect(0);
+
+    private long size;
+
+    public Payload put(String value) {
+        return put(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized Payload put(byte[] bytes) {
+        if (slab.remaining() < bytes.length) {
+            slab = ByteBuffer.allocateDirect(Math.max(SLAB_SIZE, bytes.length));
+        }
+
+        int offset = slab.position();
+        slab.put(bytes);
+        size += bytes.length;
+        return new Payload(slab.duplicate().position(offset).limit(offset + bytes.length).slice());
+    }
+
+    /**
+     * Adds a region of a memory-mapped file to this store without copying it.
+     */
+    synchronized Payload map(ByteBuffer region) {
+        size += region.remaining();
+        return new Payload(region);
+    }
+
+    /**
+     * Returns the number of payload bytes held by this store.
+     */
+    public synchronized long size() {
+        return size;
+    }
+}
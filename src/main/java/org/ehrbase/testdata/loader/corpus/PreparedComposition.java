@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+import org.ehrbase.testdata.loader.jooq.enums.EntryType;
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+
+/**
+ * Composition reduced to the values written to the database, with its encoded entry kept in a {@link PayloadStore}.
+ *
+ * @since 1.0
+ */
+public class PreparedComposition {
+
+    private final String templateId;
+
+    private final String archetypeNodeId;
+
+    private final String rmVersion;
+
+    private final String language;
+
+    private final String territory;
+
+    private final String composerName;
+
+    private final EntryType entryType;
+
+    private final DvCodedTextRecord category;
+
+    private final DvCodedTextRecord name;
+
+    private final Payload entry;
+
+    private final PreparedEventContext context;
+
+    public PreparedComposition(String templateId, String archetypeNodeId, String rmVersion, String language,
+                               String territory, String composerName, EntryType entryType, DvCodedTextRecord category,
+                               DvCodedTextRecord name, Payload entry, PreparedEventContext context) {
+        this.templateId = templateId;
+        this.archetypeNodeId = archetypeNodeId;
+        this.rmVersion = rmVersion;
+        this.language = language;
+        this.territory = territory;
+        this.composerName = composerName;
+        this.entryType = entryType;
+        this.category = category;
+        this.name = name;
+        this.entry = entry;
+        this.context = context;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public String getArchetypeNodeId() {
+        return archetypeNodeId;
+    }
+
+    public String getRmVersion() {
+        return rmVersion;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * Returns the two-letter code of the territory.
+     */
+    public String getTerritory() {
+        return territory;
+    }
+
+    public String getComposerName() {
+        return composerName;
+    }
+
+    public EntryType getEntryType() {
+        return entryType;
+    }
+
+    public DvCodedTextRecord getCategory() {
+        return category;
+    }
+
+    public DvCodedTextRecord getName() {
+        return name;
+    }
+
+    public Payload getEntry() {
+        return entry;
+    }
+
+    public PreparedEventContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the length in bytes of the JSON payloads of the composition (entry and other context).
+     */
+    public int getPayloadLength() {
+        int length = entry.length();
+        if (context != null && context.getOtherContext() != null) {
+            length += context.getOtherContext().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @since 1.0
+ */
+public class PreparedEventContext {
+
+    private final LocalDateTime startTime;
+
+    private final String startTimeTzid;
+
+    private final LocalDateTime endTime;
+
+    private final String endTimeTzid;
+
+    private final String location;
+
+    private final DvCodedTextRecord setting;
+
+    private final Payload otherContext;
+
+    private final List<PreparedParticipation> participations;
+
+    public PreparedEventContext(LocalDateTime startTime, String startTimeTzid, LocalDateTime endTime,
+                                String endTimeTzid, String location, DvCodedTextRecord setting, Payload otherContext,
+                                List<PreparedParticipation> participations) {
+        this.startTime = startTime;
+        this.startTimeTzid = startTimeTzid;
+        this.endTime = endTime;
+        this.endTimeTzid = endTimeTzid;
+        this.location = location;
+        this.setting = setting;
+        this.otherContext = otherContext;
+        this.participations = participations;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public String getStartTimeTzid() {
+        return startTimeTzid;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public String getEndTimeTzid() {
+        return endTimeTzid;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public DvCodedTextRecord getSetting() {
+        return setting;
+    }
+
+    public Payload getOtherContext() {
+        return otherContext;
+    }
+
+    public List<PreparedParticipation> getParticipations() {
+        return participations;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+
+import java.time.LocalDateTime;
+
+/**
+ * @since 1.0
+ */
+public class PreparedParticipation {
+
+    private final String performerName;
+
+    private final DvCodedTextRecord function;
+
+    private final DvCodedTextRecord mode;
+
+    private final LocalDateTime timeLower;
+
+    private final String timeLowerTz;
+
+    private final LocalDateTime timeUpper;
+
+    private final String timeUpperTz;
+
+    public PreparedParticipation(String performerName, DvCodedTextRecord function, DvCodedTextRecord mode,
+                                 LocalDateTime timeLower, String timeLowerTz, LocalDateTime timeUpper,
+                                 String timeUpperTz) {
+        this.performerName = performerName;
+        this.function = function;
+        this.mode = mode;
+        this.timeLower = timeLower;
+        this.timeLowerTz = timeLowerTz;
+        this.timeUpper = timeUpper;
+        this.timeUpperTz = timeUpperTz;
+    }
+
+    public String getPerformerName() {
+        return performerName;
+    }
+
+    public DvCodedTextRecord getFunction() {
+        return function;
+    }
+
+    public DvCodedTextRecord getMode() {
+        return mode;
+    }
+
+    public LocalDateTime getTimeLower() {
+        return timeLower;
+    }
+
+    public String getTimeLowerTz() {
+        return timeLowerTz;
+    }
+
+    public LocalDateTime getTimeUpper() {
+        return timeUpper;
+    }
+
+    public String getTimeUpperTz() {
+        return timeUpperTz;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.corpus;
+
+/**
+ * Operational template with the MD5 hash of its content, used to skip the upload of unchanged templates.
+ *
+ * @since 1.0
+ */
+public class PreparedTemplate {
+
+    private final String templateId;
+
+    private final String hash;
+
+    private final Payload content;
+
+    public PreparedTemplate(String templateId, String hash, Payload content) {
+        this.templateId = templateId;
+        this.hash = hash;
+        this.content = content;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    /**
+     * Returns the hex encoded MD5 hash of the UTF-8 content, as computed by PostgreSQL {@code md5(text)}.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    public Payload getContent() {
+        return content;
+    }
+}
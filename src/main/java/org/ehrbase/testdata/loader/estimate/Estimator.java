@@ -0,0 +1,146 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.estimate;
+
+import org.ehrbase.testdata.loader.LoaderApplication;
+import org.ehrbase.testdata.loader.config.LoaderProperties;
+import org.ehrbase.testdata.loader.purge.Purger;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StopWatch;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates the duration and the disk footprint of a load by loading a sample of the EHRs, then purging it.
+ * <p>
+ * The sample is loaded like a real load, by {@code workers} writers committing in the configured write order, under a
+ * run id of its own. The growth of each table (including its indexes and TOAST data) and of each index is measured
+ * with the relation sizes, the rows per table are the rows deleted by the {@link Purger}, and all of them are scaled
+ * to the requested number of EHRs.
+ * <p>
+ * Only the sample is purged: the system and committer rows and the templates are created or updated on startup, as
+ * for any other run, and stay committed.
+ *
+ * @since 1.0
+ */
+public class Estimator {
+
+    /**
+     * Sizes of the tables, including indexes and TOAST data, and of the indexes of the ehr schema.
+     */
+    private static final String RELATION_SIZES = "select case c.relkind when 'i' then 'index ' else 'table ' end"
+            + " || c.relname as name,"
+            + " case c.relkind when 'i' then pg_relation_size(c.oid) else pg_total_relation_size(c.oid) end as size"
+            + " from pg_class c join pg_namespace n on n.oid = c.relnamespace"
+            + " where n.nspname = 'ehr' and c.relkind in ('r', 'i')";
+
+    private final Logger log = LoggerFactory.getLogger(Estimator.class);
+
+    private final LoaderApplication loader;
+
+    private final DSLContext dsl;
+
+    private final LoaderProperties properties;
+
+    public Estimator(LoaderApplication loader, DSLContext dsl, LoaderProperties properties) {
+        this.loader = loader;
+        this.dsl = dsl;
+        this.properties = properties;
+    }
+
+    public void run() {
+        int sampleEhrs = (int) Math.max(1, Math.round(properties.getEhr() * properties.getEstimateSampleRatio()));
+        double factor = (double) properties.getEhr() / sampleEhrs;
+
+        log.info("Start estimating... ({} of {} EHRs, {} compositions per EHR, run {})", sampleEhrs,
+                properties.getEhr(), properties.getCompositionPerEhr(), loader.getRunId());
+        if (sampleEhrs < properties.getWorkers()) {
+            log.warn("The sample has fewer EHRs than workers, the duration is overestimated");
+        }
+
+        var sizesBefore = fetchSizes();
+        StopWatch stopWatch = new StopWatch();
+        Map<String, Long> sizesAfter;
+        Map<String, Long> rows;
+        try {
+            stopWatch.start();
+            loader.loadEhrs(sampleEhrs);
+            stopWatch.stop();
+            sizesAfter = fetchSizes();
+        } finally {
+            rows = new Purger(dsl, properties).run(loader.getRunId());
+        }
+
+        report(stopWatch.getTotalTimeSeconds(), factor, rows, sizesBefore, sizesAfter);
+        log.info("Sample purged, the space it used is reclaimed by the next vacuum");
+    }
+
+    private Map<String, Long> fetchSizes() {
+        return dsl.resultQuery(RELATION_SIZES)
+                .fetchMap(r -> r.get("name", String.class), r -> r.get("size", Long.class));
+    }
+
+    private void report(double seconds, double factor, Map<String, Long> rows, Map<String, Long> sizesBefore,
+            Map<String, Long> sizesAfter) {
+        long totalRows = rows.values().stream().mapToLong(Long::longValue).sum();
+        log.info("Sample: {} rows in {} s ({} rows/s)", totalRows, String.format("%.1f", seconds),
+                String.format("%.0f", totalRows / seconds));
+
+        rows.forEach((table, count) -> {
+            if (count > 0) {
+                log.info("table {}: {} rows", table, Math.round(count * factor));
+            }
+        });
+
+        var growth = sizesAfter.entrySet().stream()
+                .filter(e -> e.getValue() > sizesBefore.getOrDefault(e.getKey(), 0L))
+                .collect(Collectors.toMap(Map.Entry::getKey,
+                        e -> Math.round((e.getValue() - sizesBefore.getOrDefault(e.getKey(), 0L)) * factor),
+                        (a, b) -> a, TreeMap::new));
+        growth.forEach((relation, bytes) -> log.info("{}: {}", relation, formatBytes(bytes)));
+
+        long totalBytes = growth.entrySet().stream()
+                .filter(e -> e.getKey().startsWith("table "))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        var duration = Duration.ofSeconds(Math.round(seconds * factor));
+
+        log.info("Estimate for {} EHRs, {} compositions: {} rows, {} on disk, {} with {} workers", properties.getEhr(),
+                (long) properties.getEhr() * properties.getCompositionPerEhr(), Math.round(totalRows * factor),
+                formatBytes(totalBytes), formatDuration(duration), properties.getWorkers());
+    }
+
+    private static String formatBytes(long bytes) {
+        var units = new String[] {"B", "kB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = 0;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format("%.1f %s", value, units[unit]);
+    }
+
+    private static String formatDuration(Duration duration) {
+        return String.format("%d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.purge;
+
+import org.ehrbase.testdata.loader.config.LoaderProperties;
+import org.ehrbase.testdata.loader.utils.WorkerUtils;
+import org.ehrbase.testdata.loader.writer.LoadContext;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StopWatch;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.ehrbase.testdata.loader.jooq.tables.AuditDetails.AUDIT_DETAILS;
+
+/**
+ * Deletes the data loaded by a run, identified by the run id in the description of its audit details.
+ * <p>
+ * The EHR id space is split into ranges that are purged in parallel, one transaction per range. Within a range, the
+ * ids of the rows to delete are collected in temporary tables, then rows are deleted set by set in foreign key order,
+ * including the history rows written by the versioning triggers.
+ *
+ * @since 1.0
+ */
+public class Purger {
+
+    /**
+     * EHRs created by the run within a range of EHR ids.
+     */
+    private static final String COLLECT_EHR = "create temp table purge_ehr on commit drop as"
+            + " select s.ehr_id as id from ehr.status s join ehr.audit_details a on a.id = s.has_audit"
+            + " where s.ehr_id between {0} and {1} and a.description = {2}";
+
+    /**
+     * Compositions created by the run, or belonging to an EHR created by the run, within a range of EHR ids.
+     */
+    private static final String COLLECT_COMPOSITION = "create temp table purge_composition on commit drop as"
+            + " select c.id, c.in_contribution, c.has_audit, c.composer"
+            + " from ehr.composition c join ehr.audit_details a on a.id = c.has_audit"
+            + " where c.ehr_id between {0} and {1}"
+            + " and (a.description = {2} or c.ehr_id in (select id from purge_ehr))";
+
+    /**
+     * Rows depending on the collected EHRs and compositions.
+     */
+    private static final List<String> COLLECT_DEPENDENT = List.of(
+            "create temp table purge_event_context on commit drop as"
+                    + " select id from ehr.event_context where composition_id in (select id from purge_composition)",
+            "create temp table purge_participation on commit drop as"
+                    + " select id, performer from ehr.participation"
+                    + " where event_context in (select id from purge_event_context)",
+            "create temp table purge_status on commit drop as"
+                    + " select id, party, has_audit from ehr.status where ehr_id in (select id from purge_ehr)",
+            "create temp table purge_contribution on commit drop as"
+                    + " select id, has_audit from ehr.contribution"
+                    + " where id in (select in_contribution from purge_composition)"
+                    + " or ehr_id in (select id from purge_ehr)");
+
+    /**
+     * Delete statements by table, in foreign key order.
+     */
+    private static final Map<String, String> DELETE = new LinkedHashMap<>();
+
+    static {
+        DELETE.put("participation",
+                "delete from ehr.participation where id in (select id from purge_participation)");
+        DELETE.put("participation_history",
+                "delete from ehr.participation_history where id in (select id from purge_participation)");
+        DELETE.put("event_context",
+                "delete from ehr.event_context where id in (select id from purge_event_context)");
+        DELETE.put("event_context_history",
+                "delete from ehr.event_context_history where id in (select id from purge_event_context)");
+        DELETE.put("entry",
+                "delete from ehr.entry where composition_id in (select id from purge_composition)");
+        DELETE.put("entry_history",
+                "delete from ehr.entry_history where composition_id in (select id from purge_composition)");
+        DELETE.put("composition",
+                "delete from ehr.composition where id in (select id from purge_composition)");
+        DELETE.put("composition_history",
+                "delete from ehr.composition_history where id in (select id from purge_composition)");
+        DELETE.put("status",
+                "delete from ehr.status where id in (select id from purge_status)");
+        DELETE.put("status_history",
+                "delete from ehr.status_history where id in (select id from purge_status)");
+        DELETE.put("contribution",
+                "delete from ehr.contribution where id in (select id from purge_contribution)");
+        DELETE.put("audit_details",
+                "delete from ehr.audit_details where id in (select has_audit from purge_composition"
+                        + " union all select has_audit from purge_contribution"
+                        + " union all select has_audit from purge_status)");
+        DELETE.put("party_identified",
+                "delete from ehr.party_identified where id in (select composer from purge_composition"
+                        + " union all select performer from purge_participation"
+                        + " union all select party from purge_status)");
+        DELETE.put("ehr",
+                "delete from ehr.ehr where id in (select id from purge_ehr)");
+    }
+
+    private final Logger log = LoggerFactory.getLogger(Purger.class);
+
+    private final DSLContext dsl;
+    private final LoaderProperties properties;
+
+    private final Map<String, AtomicLong> deleted = new LinkedHashMap<>();
+
+    public Purger(DSLContext dsl, LoaderProperties properties) {
+        this.dsl = dsl;
+        this.properties = properties;
+        DELETE.keySet().forEach(table -> deleted.put(table, new AtomicLong()));
+    }
+
+    public void run() {
+        run(properties.getPurge());
+    }
+
+    /**
+     * Deletes the data of the given run.
+     *
+     * @return the number of deleted rows by table, in foreign key order
+     */
+    public Map<String, Long> run(String runId) {
+        var ehrStatusDescription = LoadContext.auditDescription("Create EHR_STATUS", runId);
+        var compositionDescription = LoadContext.auditDescription("Create COMPOSITION", runId);
+
+        // Each EHR and each composition has two audit details (own and contribution)
+        var tagged = dsl.fetchCount(AUDIT_DETAILS,
+                AUDIT_DETAILS.DESCRIPTION.in(ehrStatusDescription, compositionDescription));
+        if (tagged == 0) {
+            log.info("No data found for run {}", runId);
+            return Map.of();
+        }
+
+        int rangeCount = Math.max(1, (tagged / 2 + properties.getPurgeBatchSize() - 1) / properties.getPurgeBatchSize());
+        log.info("Start purging run {}... ({} EHRs and compositions, {} ranges)", runId, tagged / 2, rangeCount);
+
+        var stopWatch = new StopWatch();
+        stopWatch.start();
+
+        var nextRange = new AtomicInteger();
+        WorkerUtils.runWorkers(properties.getWorkers(), () -> {
+            int range;
+            while ((range = nextRange.getAndIncrement()) < rangeCount) {
+                purge(lowerBound(range, rangeCount), upperBound(range, rangeCount), ehrStatusDescription,
+                        compositionDescription);
+            }
+        });
+
+        stopWatch.stop();
+        long total = deleted.values().stream().mapToLong(AtomicLong::get).sum();
+        deleted.forEach((table, rows) -> log.info("{}: {} rows", table, rows.get()));
+        log.info("Purged {} rows in {} s ({} rows/s)", total, stopWatch.getTotalTimeSeconds(),
+                String.format("%.0f", total / stopWatch.getTotalTimeSeconds()));
+
+        var rows = new LinkedHashMap<String, Long>();
+        deleted.forEach((table, count) -> rows.put(table, count.get()));
+        return rows;
+    }
+
+    private void purge(UUID lower, UUID upper, String ehrStatusDescription, String compositionDescription) {
+        dsl.transaction(configuration -> {
+            var tx = DSL.using(configuration);
+            // CREATE TABLE AS does not accept bind values
+            tx.execute(COLLECT_EHR, DSL.inline(lower), DSL.inline(upper), DSL.inline(ehrStatusDescription));
+            tx.execute(COLLECT_COMPOSITION, DSL.inline(lower), DSL.inline(upper), DSL.inline(compositionDescription));
+            COLLECT_DEPENDENT.forEach(tx::execute);
+            DELETE.forEach((table, sql) -> deleted.get(table).addAndGet(tx.execute(sql)));
+        });
+    }
+
+    /**
+     * Returns the first UUID of the given range, ranges split the UUID space on the unsigned most significant bits.
+     */
+    static UUID lowerBound(int range, int rangeCount) {
+        return new UUID(range * Long.divideUnsigned(-1L, rangeCount), 0L);
+    }
+
+    static UUID upperBound(int range, int rangeCount) {
+        if (range == rangeCount - 1) {
+            return new UUID(-1L, -1L);
+        }
+        return new UUID(lowerBound(range + 1, rangeCount).getMostSignificantBits() - 1, -1L);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.soak;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded pool of EHR ids that compositions can be appended to. Once full, new ids overwrite the oldest ones.
+ *
+ * @since 1.0
+ */
+public class EhrPool {
+
+    private final AtomicReferenceArray<UUID> ehrIds;
+
+    private final AtomicLong added = new AtomicLong();
+
+    public EhrPool(int capacity) {
+        this.ehrIds = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(UUID ehrId) {
+        ehrIds.set((int) (added.getAndIncrement() % ehrIds.length()), ehrId);
+    }
+
+    /**
+     * Returns a random EHR id, or {@code null} if the pool is empty.
+     */
+    public UUID random() {
+        int size = (int) Math.min(added.get(), ehrIds.length());
+        if (size == 0) {
+            return null;
+        }
+        return ehrIds.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    public int size() {
+        return (int) Math.min(added.get(), ehrIds.length());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.soak;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.ehrbase.testdata.loader.LoaderApplication;
+import org.ehrbase.testdata.loader.config.LoaderProperties;
+import org.ehrbase.testdata.loader.utils.HistogramUtils;
+import org.ehrbase.testdata.loader.utils.WorkerUtils;
+import org.ehrbase.testdata.loader.writer.TestDataWriter;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.ehrbase.testdata.loader.jooq.tables.Ehr.EHR_;
+
+/**
+ * Inserts compositions at a constant target rate for a given duration and reports latency percentiles per interval.
+ * <p>
+ * Each token of the {@link TokenBucket} is one composition. With probability {@code newEhrRatio} the composition is
+ * inserted into a new EHR, otherwise it is appended to an existing EHR picked from an {@link EhrPool} seeded from the
+ * database.
+ *
+ * @since 1.0
+ */
+public class SoakRunner {
+
+    private static final int EHR_POOL_SIZE = 100_000;
+
+    private final Logger log = LoggerFactory.getLogger(SoakRunner.class);
+
+    private final LoaderApplication loader;
+    private final DSLContext dsl;
+    private final LoaderProperties properties;
+
+    private final EhrPool ehrPool = new EhrPool(EHR_POOL_SIZE);
+    private final Recorder recorder = new Recorder(HistogramUtils.MAX_LATENCY_MICROS, 3);
+    private final Histogram total = HistogramUtils.newHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong intervalErrors = new AtomicLong();
+    private final AtomicLong ehrs = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+
+    private long lastReport;
+
+    public SoakRunner(LoaderApplication loader, DSLContext dsl, LoaderProperties properties) {
+        this.loader = loader;
+        this.dsl = dsl;
+        this.properties = properties;
+    }
+
+    public void run() {
+        dsl.select(EHR_.ID)
+                .from(EHR_)
+                .limit(EHR_POOL_SIZE)
+                .fetch(EHR_.ID)
+                .forEach(ehrPool::add);
+
+        log.info("Start soak test... ({} compositions/s for {}, {} existing EHRs, run {})",
+                properties.getTargetRate(), properties.getDuration(), ehrPool.size(), loader.getRunId());
+
+        var bucket = new TokenBucket(properties.getTargetRate());
+        long end = System.nanoTime() + properties.getDuration().toNanos();
+
+        var reporter = Executors.newSingleThreadScheduledExecutor();
+
+        lastReport = System.nanoTime();
+        long interval = properties.getReportInterval().toNanos();
+        reporter.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.NANOSECONDS);
+
+        try {
+            WorkerUtils.runWorkers(properties.getWorkers(), () -> {
+                try (var writer = loader.newWriter()) {
+                    // Stop at the wall-clock end, even if the database fell behind and tokens are still due
+                    while (System.nanoTime() - end < 0 && !Thread.currentThread().isInterrupted()) {
+                        long scheduled = bucket.acquire();
+                        if (scheduled - end >= 0 || System.nanoTime() - end >= 0) {
+                            break;
+                        }
+                        attempts.incrementAndGet();
+                        if (insert(writer)) {
+                            long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+                            recorder.recordValue(Math.min(latency, HistogramUtils.MAX_LATENCY_MICROS));
+                        }
+                    }
+                }
+            });
+        } finally {
+            reporter.shutdownNow();
+        }
+        report();
+
+        long missed = bucket.scheduledBefore(end) - attempts.get();
+        log.info("Soak test finished: {} compositions, {} new EHRs, {} errors, {} missed, {}", total.getTotalCount(),
+                ehrs.get(), errors.get(), Math.max(0, missed), HistogramUtils.formatPercentiles(total));
+    }
+
+    /**
+     * Inserts a composition, in a new EHR or in an existing one.
+     *
+     * @return whether the composition was inserted
+     */
+    private boolean insert(TestDataWriter writer) {
+        try {
+            UUID ehrId = null;
+            if (ThreadLocalRandom.current().nextDouble() >= properties.getNewEhrRatio()) {
+                ehrId = ehrPool.random();
+            }
+
+            boolean newEhr = ehrId == null;
+            if (newEhr) {
+                ehrId = writer.insertEhr();
+            }
+            writer.insertComposition(ehrId, loader.getCorpus().randomComposition());
+            writer.flush();
+
+            if (newEhr) {
+                ehrPool.add(ehrId);
+                ehrs.incrementAndGet();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            intervalErrors.incrementAndGet();
+            log.warn("Failed to insert composition", e);
+            return false;
+        }
+    }
+
+    private synchronized void report() {
+        long now = System.nanoTime();
+        var histogram = recorder.getIntervalHistogram();
+        total.add(histogram);
+
+        double seconds = (now - lastReport) / 1e9;
+        lastReport = now;
+
+        long failed = intervalErrors.getAndSet(0);
+
+        log.info("{} compositions in {} s ({} /s), {} errors ({} /s), {}", histogram.getTotalCount(),
+                String.format("%.1f", seconds), String.format("%.1f", histogram.getTotalCount() / seconds), failed,
+                String.format("%.1f", failed / seconds), HistogramUtils.formatPercentiles(histogram));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.soak;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket that releases one token every {@code 1 / rate} seconds on a fixed schedule.
+ * <p>
+ * {@link #acquire()} returns the time at which the token was <em>scheduled</em>, not the time at which the caller got
+ * it. When the workers fall behind, tokens are handed out immediately and the latency measured from the scheduled
+ * time includes the queueing delay, so a stalled database is not hidden by coordinated omission.
+ *
+ * @since 1.0
+ */
+public class TokenBucket {
+
+    private final long start;
+
+    private final double intervalNanos;
+
+    private long issued;
+
+    public TokenBucket(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.start = System.nanoTime();
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    }
+
+    /**
+     * Returns the number of tokens scheduled before the given time, as given by {@link System#nanoTime()}.
+     */
+    public long scheduledBefore(long time) {
+        return Math.max(0, (long) Math.ceil((time - start) / intervalNanos));
+    }
+
+    /**
+     * Waits until the next token is released.
+     *
+     * @return the scheduled release time of the token, as given by {@link System#nanoTime()}
+     */
+    public long acquire() {
+        long scheduled;
+        synchronized (this) {
+            scheduled = start + (long) (issued++ * intervalNanos);
+        }
+
+        long delay;
+        while ((delay = scheduled - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return scheduled;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.utils;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * @since 1.0
+ */
+public class HistogramUtils {
+
+    /**
+     * Highest trackable latency, in microseconds (1 hour).
+     */
+    public static final long MAX_LATENCY_MICROS = 3_600_000_000L;
+
+    private HistogramUtils() {
+    }
+
+    public static Histogram newHistogram() {
+        return new Histogram(MAX_LATENCY_MICROS, 3);
+    }
+
+    /**
+     * Formats the latency percentiles of the given histogram, recorded in microseconds, as milliseconds.
+     */
+    public static String formatPercentiles(Histogram histogram) {
+        return String.format("p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, p99.9=%.2f ms, max=%.2f ms",
+                millis(histogram.getValueAtPercentile(50.0)),
+                millis(histogram.getValueAtPercentile(90.0)),
+                millis(histogram.getValueAtPercentile(99.0)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
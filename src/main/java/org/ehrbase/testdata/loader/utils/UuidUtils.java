@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehrbase.testdata.loader.utils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @since 1.0
+ */
+public class UuidUtils {
+
+    private static final long EHR_PREFIX_MASK = 0xffffffff00000000L;
+
+    private UuidUtils() {
+    }
+
+    /**
+     * Returns a version 4 UUID generated with {@link ThreadLocalRandom} instead of the contended
+     * {@link java.security.SecureRandom} used by {@link UUID#randomUUID()}.
+     */
+    public static UUID randomUuid() {
+        var random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Returns a version 4 UUID whose 32 most significant bits are those of the given EHR id (or of an id created by
+     * this method for that EHR), so that ordering rows by this id groups them by EHR.
+     */
+    public static UUID ehrOrderedUuid(UUID ehrId) {
+        var uuid = randomUuid();
+        return new UUID((ehrId.getMostSignificantBits() & EHR_PREFIX_MASK)
+                | (uuid.getMostSignificantBits() & ~EHR_PREFIX_MASK), uuid.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.utils;
+
+import org.ehrbase.testdata.loader.LoaderException;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+/**
+ * @since 1.0
+ */
+public class WorkerUtils {
+
+    private WorkerUtils() {
+    }
+
+    /**
+     * Runs the given task on {@code count} threads and waits until all of them completed.
+     *
+     * @throws LoaderException if one of the tasks failed
+     */
+    public static void runWorkers(int count, Runnable task) {
+        var executor = Executors.newFixedThreadPool(count);
+        try {
+            var futures = new ArrayList<CompletableFuture<Void>>(count);
+            for (int i = 0; i < count; i++) {
+                futures.add(CompletableFuture.runAsync(task, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new LoaderException("Worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
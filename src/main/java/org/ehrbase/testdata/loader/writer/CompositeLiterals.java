@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.writer;
+
+import org.jooq.UDTRecord;
+
+/**
+ * Renders PostgreSQL text literals of composite types, so that UDT values can be bound as plain strings.
+ *
+ * @since 1.0
+ */
+class CompositeLiterals {
+
+    private CompositeLiterals() {
+    }
+
+    /**
+     * Returns the literal of the given record, e.g. {@code ("value","(\"local\",\"at0001\")",,,,"{}")}.
+     */
+    static String toLiteral(UDTRecord<?> record) {
+        var literal = new StringBuilder("(");
+        for (int i = 0; i < record.size(); i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            var value = record.get(i);
+            if (value != null) {
+                quote(literal, toText(value));
+            }
+        }
+        return literal.append(')').toString();
+    }
+
+    private static String toText(Object value) {
+        if (value instanceof UDTRecord) {
+            return toLiteral((UDTRecord<?>) value);
+        } else if (value instanceof Object[]) {
+            var literal = new StringBuilder("{");
+            var elements = (Object[]) value;
+            for (int i = 0; i < elements.length; i++) {
+                if (i > 0) {
+                    literal.append(',');
+                }
+                if (elements[i] == null) {
+                    literal.append("NULL");
+                } else {
+                    quote(literal, toText(elements[i]));
+                }
+            }
+            return literal.append('}').toString();
+        } else {
+            return value.toString();
+        }
+    }
+
+    private static void quote(StringBuilder literal, String value) {
+        literal.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\');
+            }
+            literal.append(c);
+        }
+        literal.append('"');
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.writer;
+
+import org.ehrbase.testdata.loader.LoaderException;
+import org.ehrbase.testdata.loader.corpus.Payload;
+import org.ehrbase.testdata.loader.corpus.PreparedComposition;
+import org.ehrbase.testdata.loader.corpus.PreparedEventContext;
+import org.ehrbase.testdata.loader.jooq.enums.ContributionChangeType;
+import org.ehrbase.testdata.loader.jooq.enums.ContributionDataType;
+import org.ehrbase.testdata.loader.jooq.enums.ContributionState;
+import org.ehrbase.testdata.loader.jooq.enums.PartyRefIdType;
+import org.ehrbase.testdata.loader.jooq.enums.PartyType;
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.ehrbase.testdata.loader.utils.UuidUtils.ehrOrderedUuid;
+import static org.ehrbase.testdata.loader.utils.UuidUtils.randomUuid;
+
+/**
+ * {@link TestDataWriter} that binds values directly to one prepared statement per table, held on a dedicated
+ * connection for the lifetime of the writer.
+ * <p>
+ * Timestamps and {@code sys_period} are computed by the database, enums and UDT values are bound as text literals
+ * rendered once per corpus value, and JSONB payloads are streamed from their off-heap buffer. Combined with the
+ * {@code reWriteBatchedInserts} driver option, each flush sends the rows of a table as multi-row INSERTs, which the
+ * driver splits into statements of at most 128 rows.
+ *
+ * @since 1.0
+ */
+public class JdbcWriter implements TestDataWriter {
+
+    private static final String INSERT_EHR =
+            "insert into ehr.ehr (id, date_created, date_created_tzid, system_id)"
+                    + " values (?, localtimestamp, ?, ?)";
+
+    private static final String INSERT_PARTY_IDENTIFIED =
+            "insert into ehr.party_identified (id, name, party_ref_value, party_ref_scheme, party_ref_namespace,"
+                    + " party_ref_type, party_type, object_id_type)"
+                    + " values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_AUDIT_DETAILS =
+            "insert into ehr.audit_details (id, system_id, committer, time_committed, time_committed_tzid,"
+                    + " change_type, description)"
+                    + " values (?, ?, ?, localtimestamp, ?, ?, ?)";
+
+    private static final String INSERT_CONTRIBUTION =
+            "insert into ehr.contribution (id, ehr_id, contribution_type, state, has_audit)"
+                    + " values (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_STATUS =
+            "insert into ehr.status (id, ehr_id, party, sys_transaction, sys_period, has_audit, in_contribution,"
+                    + " archetype_node_id, name, other_details)"
+                    + " values (?, ?, ?, localtimestamp, tstzrange(now(), null), ?, ?, ?, ?,"
+                    + " convert_from(?, 'UTF8')::jsonb)";
+
+    private static final String INSERT_COMPOSITION =
+            "insert into ehr.composition (id, ehr_id, in_contribution, language, territory, composer,"
+                    + " sys_transaction, sys_period, has_audit, links)"
+                    + " values (?, ?, ?, ?, ?, ?, localtimestamp, tstzrange(now(), null), ?, '[]'::jsonb)";
+
+    private static final String INSERT_ENTRY =
+            "insert into ehr.entry (id, composition_id, sequence, item_type, template_id, archetype_id, category,"
+                    + " entry, sys_transaction, sys_period, rm_version, name)"
+                    + " values (?, ?, 0, ?, ?, ?, ?, convert_from(?, 'UTF8')::jsonb, localtimestamp,"
+                    + " tstzrange(now(), null), ?, ?)";
+
+    private static final String INSERT_EVENT_CONTEXT =
+            "insert into ehr.event_context (id, composition_id, start_time, start_time_tzid, end_time,"
+                    + " end_time_tzid, location, setting, sys_transaction, sys_period, other_context)"
+                    + " values (?, ?, ?, ?, ?, ?, ?, ?, localtimestamp, tstzrange(now(), null),"
+                    + " convert_from(?, 'UTF8')::jsonb)";
+
+    private static final String INSERT_PARTICIPATION =
+            "insert into ehr.participation (id, event_context, performer, function, mode, sys_transaction,"
+                    + " sys_period, time_lower, time_lower_tz, time_upper, time_upper_tz)"
+                    + " values (?, ?, ?, ?, ?, localtimestamp, tstzrange(now(), null), ?, ?, ?, ?)";
+
+    private static final String STATUS_NAME = CompositeLiterals.toLiteral(
+            new DvCodedTextRecord("Created by Test Data Loader", null, null, null, null, null));
+
+    private final LoadContext context;
+
+    private final Connection connection;
+
+    /**
+     * Statements in foreign key order.
+     */
+    private final PreparedStatement[] statements;
+    private final int[] pending;
+
+    private final PreparedStatement ehrStatement;
+    private final PreparedStatement partyStatement;
+    private final PreparedStatement auditDetailsStatement;
+    private final PreparedStatement contributionStatement;
+    private final PreparedStatement statusStatement;
+    private final PreparedStatement compositionStatement;
+    private final PreparedStatement entryStatement;
+    private final PreparedStatement eventContextStatement;
+    private final PreparedStatement participationStatement;
+
+    private final Map<DvCodedTextRecord, String> literals = new IdentityHashMap<>();
+
+    public JdbcWriter(DataSource dataSource, LoadContext context) {
+        this.context = context;
+        this.connection = openConnection(dataSource);
+
+        try {
+            ehrStatement = connection.prepareStatement(INSERT_EHR);
+            partyStatement = connection.prepareStatement(INSERT_PARTY_IDENTIFIED);
+            auditDetailsStatement = connection.prepareStatement(INSERT_AUDIT_DETAILS);
+            contributionStatement = connection.prepareStatement(INSERT_CONTRIBUTION);
+            statusStatement = connection.prepareStatement(INSERT_STATUS);
+            compositionStatement = connection.prepareStatement(INSERT_COMPOSITION);
+            entryStatement = connection.prepareStatement(INSERT_ENTRY);
+            eventContextStatement = connection.prepareStatement(INSERT_EVENT_CONTEXT);
+            participationStatement = connection.prepareStatement(INSERT_PARTICIPATION);
+        } catch (SQLException e) {
+            // The writer owns the connection, return it to the pool
+            try {
+                connection.close();
+            } catch (SQLException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw new LoaderException("Failed to prepare statements", e);
+        }
+
+        statements = new PreparedStatement[]{ehrStatement, partyStatement, auditDetailsStatement,
+                contributionStatement, statusStatement, compositionStatement, entryStatement, eventContextStatement,
+                participationStatement};
+        pending = new int[statements.length];
+    }
+
+    @Override
+    public UUID insertEhr() {
+        try {
+            var ehrId = randomUuid();
+            ehrStatement.setObject(1, ehrId);
+            ehrStatement.setString(2, context.getZoneId());
+            ehrStatement.setObject(3, context.getSystemId());
+            addBatch(0);
+
+            var partyId = randomUuid();
+            partyStatement.setObject(1, partyId);
+            partyStatement.setNull(2, Types.VARCHAR);
+            partyStatement.setString(3, randomUuid().toString());
+            partyStatement.setString(4, "id_scheme");
+            partyStatement.setString(5, "patients");
+            partyStatement.setString(6, "PERSON");
+            partyStatement.setObject(7, PartyType.party_self.getLiteral(), Types.OTHER);
+            partyStatement.setObject(8, PartyRefIdType.generic_id.getLiteral(), Types.OTHER);
+            addBatch(1);
+
+            statusStatement.setObject(1, randomUuid());
+            statusStatement.setObject(2, ehrId);
+            statusStatement.setObject(3, partyId);
+            statusStatement.setObject(4, createAuditDetails(context.getEhrStatusDescription()));
+            statusStatement.setObject(5, createContribution(ehrId, ContributionDataType.ehr, context.getEhrStatusDescription()));
+            statusStatement.setString(6, "openEHR-EHR-ITEM_TREE.fake.v1");
+            statusStatement.setObject(7, STATUS_NAME, Types.OTHER);
+            setPayload(statusStatement, 8, context.getEhrStatusOtherDetails());
+            addBatch(4);
+
+            return ehrId;
+        } catch (SQLException e) {
+            throw new LoaderException("Failed to bind EHR", e);
+        }
+    }
+
+    @Override
+    public void insertComposition(UUID ehrId, PreparedComposition composition) {
+        try {
+            var compositionId = ehrOrderedUuid(ehrId);
+            compositionStatement.setObject(1, compositionId);
+            compositionStatement.setObject(2, ehrId);
+            compositionStatement.setObject(3, createContribution(ehrId, ContributionDataType.composition, context.getCompositionDescription()));
+            compositionStatement.setString(4, composition.getLanguage());
+            compositionStatement.setInt(5, context.getTerritory(composition.getTerritory()));
+            compositionStatement.setObject(6, createPartyIdentified(composition.getComposerName()));
+            compositionStatement.setObject(7, createAuditDetails(context.getCompositionDescription()));
+            addBatch(5);
+
+            entryStatement.setObject(1, randomUuid());
+            entryStatement.setObject(2, compositionId);
+            entryStatement.setObject(3, composition.getEntryType().getLiteral(), Types.OTHER);
+            entryStatement.setString(4, composition.getTemplateId());
+            entryStatement.setString(5, composition.getArchetypeNodeId());
+            setDvCodedText(entryStatement, 6, composition.getCategory());
+            setPayload(entryStatement, 7, composition.getEntry());
+            entryStatement.setString(8, composition.getRmVersion());
+            setDvCodedText(entryStatement, 9, composition.getName());
+            addBatch(6);
+
+            if (composition.getContext() != null) {
+                createEventContext(compositionId, composition.getContext());
+            }
+        } catch (SQLException e) {
+            throw new LoaderException("Failed to bind composition", e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            for (int i = 0; i < statements.length; i++) {
+                if (pending[i] > 0) {
+                    statements[i].executeBatch();
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            for (var statement : statements) {
+                clearBatch(statement);
+            }
+            rollback();
+            throw new LoaderException("Failed to write rows", e);
+        } finally {
+            Arrays.fill(pending, 0);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new LoaderException("Failed to close connection", e);
+            }
+        }
+    }
+
+    private static Connection openConnection(DataSource dataSource) {
+        try {
+            var connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            return connection;
+        } catch (SQLException e) {
+            throw new LoaderException("Failed to open connection", e);
+        }
+    }
+
+    private void createEventContext(UUID compositionId, PreparedEventContext eventContext) throws SQLException {
+        var eventContextId = ehrOrderedUuid(compositionId);
+        eventContextStatement.setObject(1, eventContextId);
+        eventContextStatement.setObject(2, compositionId);
+        setDateTime(eventContextStatement, 3, eventContext.getStartTime());
+        eventContextStatement.setString(4, eventContext.getStartTimeTzid());
+        setDateTime(eventContextStatement, 5, eventContext.getEndTime());
+        eventContextStatement.setString(6, eventContext.getEndTimeTzid());
+        eventContextStatement.setString(7, eventContext.getLocation());
+        setDvCodedText(eventContextStatement, 8, eventContext.getSetting());
+        setPayload(eventContextStatement, 9, eventContext.getOtherContext());
+        addBatch(7);
+
+        for (var participation : eventContext.getParticipations()) {
+            participationStatement.setObject(1, randomUuid());
+            participationStatement.setObject(2, eventContextId);
+            participationStatement.setObject(3, createPartyIdentified(participation.getPerformerName()));
+            setDvCodedText(participationStatement, 4, participation.getFunction());
+            setDvCodedText(participationStatement, 5, participation.getMode());
+            setDateTime(participationStatement, 6, participation.getTimeLower());
+            participationStatement.setString(7, participation.getTimeLowerTz());
+            setDateTime(participationStatement, 8, participation.getTimeUpper());
+            participationStatement.setString(9, participation.getTimeUpperTz());
+            addBatch(8);
+        }
+    }
+
+    private UUID createPartyIdentified(String name) throws SQLException {
+        var partyId = randomUuid();
+        partyStatement.setObject(1, partyId);
+        partyStatement.setString(2, name);
+        partyStatement.setNull(3, Types.VARCHAR);
+        partyStatement.setNull(4, Types.VARCHAR);
+        partyStatement.setNull(5, Types.VARCHAR);
+        partyStatement.setNull(6, Types.VARCHAR);
+        partyStatement.setObject(7, PartyType.party_identified.getLiteral(), Types.OTHER);
+        partyStatement.setObject(8, PartyRefIdType.undefined.getLiteral(), Types.OTHER);
+        addBatch(1);
+        return partyId;
+    }
+
+    private UUID createContribution(UUID ehrId, ContributionDataType contributionType, String auditDetailsDescription)
+            throws SQLException {
+        var auditId = createAuditDetails(auditDetailsDescription);
+
+        var contributionId = randomUuid();
+        contributionStatement.setObject(1, contributionId);
+        contributionStatement.setObject(2, ehrId);
+        contributionStatement.setObject(3, contributionType.getLiteral(), Types.OTHER);
+        contributionStatement.setObject(4, ContributionState.complete.getLiteral(), Types.OTHER);
+        contributionStatement.setObject(5, auditId);
+        addBatch(3);
+        return contributionId;
+    }
+
+    private UUID createAuditDetails(String description) throws SQLException {
+        var auditId = randomUuid();
+        auditDetailsStatement.setObject(1, auditId);
+        auditDetailsStatement.setObject(2, context.getSystemId());
+        auditDetailsStatement.setObject(3, context.getCommitterId());
+        auditDetailsStatement.setString(4, context.getZoneId());
+        auditDetailsStatement.setObject(5, ContributionChangeType.creation.getLiteral(), Types.OTHER);
+        auditDetailsStatement.setString(6, description);
+        addBatch(2);
+        return auditId;
+    }
+
+    private void addBatch(int statement) throws SQLException {
+        statements[statement].addBatch();
+        pending[statement]++;
+    }
+
+    private void setDvCodedText(PreparedStatement statement, int index, DvCodedTextRecord value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.OTHER);
+        } else {
+            statement.setObject(index, literals.computeIfAbsent(value, CompositeLiterals::toLiteral), Types.OTHER);
+        }
+    }
+
+    private void setPayload(PreparedStatement statement, int index, Payload payload) throws SQLException {
+        if (payload == null) {
+            statement.setNull(index, Types.BINARY);
+        } else {
+            statement.setBinaryStream(index, payload.newInputStream(), payload.length());
+        }
+    }
+
+    private void setDateTime(PreparedStatement statement, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.TIMESTAMP);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    private void clearBatch(PreparedStatement statement) {
+        try {
+            statement.clearBatch();
+        } catch (SQLException e) {
+            // ignore, the original exception is rethrown
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            // ignore, the original exception is rethrown
+        }
+    }
+}
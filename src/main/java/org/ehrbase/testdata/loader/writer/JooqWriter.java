@@ -0,0 +1,319 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.writer;
+
+import org.ehrbase.testdata.loader.corpus.PreparedComposition;
+import org.ehrbase.testdata.loader.corpus.PreparedEventContext;
+import org.ehrbase.testdata.loader.corpus.PreparedParticipation;
+import org.ehrbase.testdata.loader.jooq.enums.ContributionChangeType;
+import org.ehrbase.testdata.loader.jooq.enums.ContributionDataType;
+import org.ehrbase.testdata.loader.jooq.enums.ContributionState;
+import org.ehrbase.testdata.loader.jooq.enums.PartyRefIdType;
+import org.ehrbase.testdata.loader.jooq.enums.PartyType;
+import org.ehrbase.testdata.loader.jooq.tables.records.AuditDetailsRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.CompositionRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.ContributionRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.EhrRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.EntryRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.EventContextRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.ParticipationRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.PartyIdentifiedRecord;
+import org.ehrbase.testdata.loader.jooq.tables.records.StatusRecord;
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+import org.jooq.DSLContext;
+import org.jooq.JSONB;
+import org.jooq.TableRecord;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.ehrbase.testdata.loader.jooq.tables.AuditDetails.AUDIT_DETAILS;
+import static org.ehrbase.testdata.loader.jooq.tables.Composition.COMPOSITION;
+import static org.ehrbase.testdata.loader.jooq.tables.Contribution.CONTRIBUTION;
+import static org.ehrbase.testdata.loader.jooq.tables.Ehr.EHR_;
+import static org.ehrbase.testdata.loader.jooq.tables.Entry.ENTRY;
+import static org.ehrbase.testdata.loader.jooq.tables.EventContext.EVENT_CONTEXT;
+import static org.ehrbase.testdata.loader.jooq.tables.Participation.PARTICIPATION;
+import static org.ehrbase.testdata.loader.jooq.tables.PartyIdentified.PARTY_IDENTIFIED;
+import static org.ehrbase.testdata.loader.jooq.tables.Status.STATUS;
+import static org.ehrbase.testdata.loader.utils.UuidUtils.ehrOrderedUuid;
+
+/**
+ * {@link TestDataWriter} that buffers jOOQ records and writes them with one batch per table.
+ *
+ * @since 1.0
+ */
+public class JooqWriter implements TestDataWriter {
+
+    private final Logger log = LoggerFactory.getLogger(JooqWriter.class);
+
+    private final DSLContext dsl;
+    private final LoadContext context;
+
+    private final List<EhrRecord> ehrs = new ArrayList<>();
+    private final List<PartyIdentifiedRecord> parties = new ArrayList<>();
+    private final List<AuditDetailsRecord> auditDetails = new ArrayList<>();
+    private final List<ContributionRecord> contributions = new ArrayList<>();
+    private final List<StatusRecord> statuses = new ArrayList<>();
+    private final List<CompositionRecord> compositions = new ArrayList<>();
+    private final List<EntryRecord> entries = new ArrayList<>();
+    private final List<EventContextRecord> eventContexts = new ArrayList<>();
+    private final List<ParticipationRecord> participations = new ArrayList<>();
+
+    public JooqWriter(DSLContext dsl, LoadContext context) {
+        this.dsl = dsl;
+        this.context = context;
+    }
+
+    @Override
+    public UUID insertEhr() {
+        var ehrId = createEhr();
+        createStatus(ehrId);
+        return ehrId;
+    }
+
+    @Override
+    public void insertComposition(UUID ehrId, PreparedComposition composition) {
+        var compositionId = createComposition(ehrId, composition);
+        createEntry(compositionId, composition);
+        if (composition.getContext() != null) {
+            var eventContextId = createEventContext(compositionId, composition.getContext());
+            createParticipations(eventContextId, composition.getContext().getParticipations());
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (ehrs.isEmpty() && compositions.isEmpty()) {
+            return;
+        }
+
+        // Foreign key order
+        try {
+            dsl.transaction(configuration -> {
+                var tx = DSL.using(configuration);
+                insert(tx, ehrs);
+                insert(tx, parties);
+                insert(tx, auditDetails);
+                insert(tx, contributions);
+                insert(tx, statuses);
+                insert(tx, compositions);
+                insert(tx, entries);
+                insert(tx, eventContexts);
+                insert(tx, participations);
+            });
+        } finally {
+            ehrs.clear();
+            parties.clear();
+            auditDetails.clear();
+            contributions.clear();
+            statuses.clear();
+            compositions.clear();
+            entries.clear();
+            eventContexts.clear();
+            participations.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void insert(DSLContext tx, List<? extends TableRecord<?>> records) {
+        if (!records.isEmpty()) {
+            tx.batchInsert(records).execute();
+        }
+    }
+
+    /**
+     * Creates an {@link EhrRecord}.
+     */
+    private UUID createEhr() {
+        var ehrRecord = dsl.newRecord(EHR_);
+        ehrRecord.setId(UUID.randomUUID());
+        ehrRecord.setDateCreated(LocalDateTime.now());
+        ehrRecord.setDateCreatedTzid(context.getZoneId());
+        ehrRecord.setSystemId(context.getSystemId());
+        ehrs.add(ehrRecord);
+        log.trace("Created EHR: {}", ehrRecord.getId());
+        return ehrRecord.getId();
+    }
+
+    /**
+     * Creates an {@link StatusRecord} for the given EHR.
+     */
+    private void createStatus(UUID ehrId) {
+        var partyRecord = dsl.newRecord(PARTY_IDENTIFIED);
+        partyRecord.setId(UUID.randomUUID());
+        partyRecord.setPartyRefValue(UUID.randomUUID().toString());
+        partyRecord.setPartyRefScheme("id_scheme");
+        partyRecord.setPartyRefNamespace("patients");
+        partyRecord.setPartyRefType("PERSON");
+        partyRecord.setPartyType(PartyType.party_self);
+        partyRecord.setObjectIdType(PartyRefIdType.generic_id);
+        parties.add(partyRecord);
+
+        var statusRecord = dsl.newRecord(STATUS);
+        statusRecord.setId(UUID.randomUUID());
+        statusRecord.setEhrId(ehrId);
+        statusRecord.setParty(partyRecord.getId());
+        statusRecord.setSysTransaction(LocalDateTime.now());
+        statusRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
+        statusRecord.setHasAudit(createAuditDetails(context.getEhrStatusDescription()));
+        statusRecord.setInContribution(createContribution(ehrId, ContributionDataType.ehr, context.getEhrStatusDescription()));
+        statusRecord.setArchetypeNodeId("openEHR-EHR-ITEM_TREE.fake.v1");
+        statusRecord.setName(new DvCodedTextRecord("Created by Test Data Loader", null, null, null, null, null));
+        statusRecord.setOtherDetails(JSONB.jsonb(context.getEhrStatusOtherDetails().toString()));
+        statuses.add(statusRecord);
+        log.trace("Created EHR_STATUS: {}", statusRecord.getId());
+    }
+
+    private UUID createPartyIdentified(String name) {
+        var partyIdentifiedRecord = dsl.newRecord(PARTY_IDENTIFIED);
+        partyIdentifiedRecord.setId(UUID.randomUUID());
+        partyIdentifiedRecord.setName(name);
+        partyIdentifiedRecord.setPartyType(PartyType.party_identified);
+        partyIdentifiedRecord.setObjectIdType(PartyRefIdType.undefined);
+        parties.add(partyIdentifiedRecord);
+        return partyIdentifiedRecord.getId();
+    }
+
+    /**
+     * Creates a {@link CompositionRecord} for the given EHR.
+     */
+    private UUID createComposition(UUID ehrId, PreparedComposition composition) {
+        var compositionRecord = dsl.newRecord(COMPOSITION);
+        compositionRecord.setId(ehrOrderedUuid(ehrId));
+        compositionRecord.setEhrId(ehrId);
+        compositionRecord.setInContribution(createContribution(ehrId, ContributionDataType.composition, context.getCompositionDescription()));
+        compositionRecord.setLanguage(composition.getLanguage());
+        compositionRecord.setTerritory(context.getTerritory(composition.getTerritory()));
+        compositionRecord.setComposer(createPartyIdentified(composition.getComposerName()));
+        compositionRecord.setSysTransaction(LocalDateTime.now());
+        compositionRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
+        compositionRecord.setHasAudit(createAuditDetails(context.getCompositionDescription()));
+        // AttestationRef
+        // FeederAudit
+        compositionRecord.setLinks(JSONB.jsonb("[]"));
+        compositions.add(compositionRecord);
+        return compositionRecord.getId();
+    }
+
+    /**
+     * Creates an {@link EntryRecord} for the given composition.
+     */
+    private void createEntry(UUID compositionId, PreparedComposition composition) {
+        var entryRecord = dsl.newRecord(ENTRY);
+        entryRecord.setId(UUID.randomUUID());
+        entryRecord.setCompositionId(compositionId);
+        entryRecord.setSequence(0);
+        entryRecord.setItemType(composition.getEntryType());
+        entryRecord.setTemplateId(composition.getTemplateId());
+        entryRecord.setArchetypeId(composition.getArchetypeNodeId());
+        entryRecord.setCategory(composition.getCategory());
+        entryRecord.setEntry(JSONB.jsonb(composition.getEntry().toString()));
+        entryRecord.setSysTransaction(LocalDateTime.now());
+        entryRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
+        entryRecord.setRmVersion(composition.getRmVersion());
+        entryRecord.setName(composition.getName());
+        entries.add(entryRecord);
+    }
+
+    /**
+     * Creates an {@link EventContextRecord} for the given composition.
+     */
+    private UUID createEventContext(UUID compositionId, PreparedEventContext eventContext) {
+        var eventContextRecord = dsl.newRecord(EVENT_CONTEXT);
+        eventContextRecord.setId(ehrOrderedUuid(compositionId));
+        eventContextRecord.setCompositionId(compositionId);
+        eventContextRecord.setStartTime(eventContext.getStartTime());
+        eventContextRecord.setStartTimeTzid(eventContext.getStartTimeTzid());
+        eventContextRecord.setEndTime(eventContext.getEndTime());
+        eventContextRecord.setEndTimeTzid(eventContext.getEndTimeTzid());
+        eventContextRecord.setLocation(eventContext.getLocation());
+        eventContextRecord.setSetting(eventContext.getSetting());
+        eventContextRecord.setSysTransaction(LocalDateTime.now());
+        eventContextRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
+        // Facility
+
+        if (eventContext.getOtherContext() != null) {
+            eventContextRecord.setOtherContext(JSONB.jsonb(eventContext.getOtherContext().toString()));
+        }
+
+        eventContexts.add(eventContextRecord);
+        return eventContextRecord.getId();
+    }
+
+    /**
+     * Creates a {@link ParticipationRecord} for the given event context.
+     */
+    private void createParticipations(UUID eventContextId, List<PreparedParticipation> participations) {
+        for (var participation : participations) {
+            var participationRecord = dsl.newRecord(PARTICIPATION);
+            participationRecord.setId(UUID.randomUUID());
+            participationRecord.setEventContext(eventContextId);
+            participationRecord.setPerformer(createPartyIdentified(participation.getPerformerName()));
+            participationRecord.setFunction(participation.getFunction());
+            participationRecord.setMode(participation.getMode());
+            participationRecord.setSysTransaction(LocalDateTime.now());
+            participationRecord.setSysPeriod(new AbstractMap.SimpleEntry<>(OffsetDateTime.now(), null));
+            participationRecord.setTimeLower(participation.getTimeLower());
+            participationRecord.setTimeLowerTz(participation.getTimeLowerTz());
+            participationRecord.setTimeUpper(participation.getTimeUpper());
+            participationRecord.setTimeUpperTz(participation.getTimeUpperTz());
+            this.participations.add(participationRecord);
+        }
+    }
+
+    /**
+     * Creates a {@link ContributionRecord} of the given EHR.
+     */
+    private UUID createContribution(UUID ehrId, ContributionDataType contributionType, String auditDetailsDescription) {
+        var contributionRecord = dsl.newRecord(CONTRIBUTION);
+        contributionRecord.setId(UUID.randomUUID());
+        contributionRecord.setEhrId(ehrId);
+        contributionRecord.setContributionType(contributionType);
+        contributionRecord.setState(ContributionState.complete);
+        contributionRecord.setHasAudit(createAuditDetails(auditDetailsDescription));
+        contributions.add(contributionRecord);
+        return contributionRecord.getId();
+    }
+
+    /**
+     * Creates an {@link AuditDetailsRecord} with the given description.
+     */
+    private UUID createAuditDetails(String description) {
+        var auditDetailsRecord = dsl.newRecord(AUDIT_DETAILS);
+        auditDetailsRecord.setId(UUID.randomUUID());
+        auditDetailsRecord.setSystemId(context.getSystemId());
+        auditDetailsRecord.setCommitter(context.getCommitterId());
+        auditDetailsRecord.setTimeCommitted(LocalDateTime.now());
+        auditDetailsRecord.setTimeCommittedTzid(context.getZoneId());
+        auditDetailsRecord.setChangeType(ContributionChangeType.creation);
+        auditDetailsRecord.setDescription(description);
+        auditDetails.add(auditDetailsRecord);
+        return auditDetailsRecord.getId();
+    }
+}
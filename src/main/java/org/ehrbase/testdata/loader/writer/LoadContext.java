@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.writer;
+
+import org.ehrbase.testdata.loader.corpus.Payload;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Values shared by all writers of a run.
+ *
+ * @since 1.0
+ */
+public class LoadContext {
+
+    private final UUID systemId;
+
+    private final UUID committerId;
+
+    private final String zoneId;
+
+    private final Map<String, Integer> territories;
+
+    private final Payload ehrStatusOtherDetails;
+
+    private final String runId;
+
+    private final String ehrStatusDescription;
+
+    private final String compositionDescription;
+
+    public LoadContext(UUID systemId, UUID committerId, String zoneId, Map<String, Integer> territories,
+                       Payload ehrStatusOtherDetails, String runId) {
+        this.systemId = systemId;
+        this.committerId = committerId;
+        this.zoneId = zoneId;
+        this.territories = Map.copyOf(territories);
+        this.ehrStatusOtherDetails = ehrStatusOtherDetails;
+        this.runId = runId;
+        this.ehrStatusDescription = auditDescription("Create EHR_STATUS", runId);
+        this.compositionDescription = auditDescription("Create COMPOSITION", runId);
+    }
+
+    /**
+     * Returns the description of the audit details created for the given action, tagged with the run id.
+     */
+    public static String auditDescription(String action, String runId) {
+        return action + " [run " + runId + "]";
+    }
+
+    public UUID getSystemId() {
+        return systemId;
+    }
+
+    public UUID getCommitterId() {
+        return committerId;
+    }
+
+    public String getZoneId() {
+        return zoneId;
+    }
+
+    /**
+     * Returns the code of the territory with the given two-letter code.
+     */
+    public Integer getTerritory(String twoLetter) {
+        return territories.get(twoLetter);
+    }
+
+    public Payload getEhrStatusOtherDetails() {
+        return ehrStatusOtherDetails;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getEhrStatusDescription() {
+        return ehrStatusDescription;
+    }
+
+    public String getCompositionDescription() {
+        return compositionDescription;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.writer;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.ehrbase.testdata.loader.jooq.tables.Composition.COMPOSITION;
+import static org.ehrbase.testdata.loader.jooq.tables.Contribution.CONTRIBUTION;
+import static org.ehrbase.testdata.loader.jooq.tables.Entry.ENTRY;
+import static org.ehrbase.testdata.loader.jooq.tables.EventContext.EVENT_CONTEXT;
+import static org.ehrbase.testdata.loader.jooq.tables.Participation.PARTICIPATION;
+import static org.ehrbase.testdata.loader.jooq.tables.Status.STATUS;
+
+/**
+ * Storage parameters and physical ordering of the tables written per EHR.
+ *
+ * @since 1.0
+ */
+public class PhysicalLayout {
+
+    /**
+     * Tables with the column their rows are clustered on, so that the rows of an EHR end up on adjacent pages. Child
+     * tables are clustered on their parent id, which the writers derive from the EHR id with
+     * {@link org.ehrbase.testdata.loader.utils.UuidUtils#ehrOrderedUuid(java.util.UUID)}.
+     */
+    private static final Map<Table<?>, Field<?>> CLUSTER_COLUMNS = Map.of(
+            STATUS, STATUS.EHR_ID,
+            CONTRIBUTION, CONTRIBUTION.EHR_ID,
+            COMPOSITION, COMPOSITION.EHR_ID,
+            ENTRY, ENTRY.COMPOSITION_ID,
+            EVENT_CONTEXT, EVENT_CONTEXT.COMPOSITION_ID,
+            PARTICIPATION, PARTICIPATION.EVENT_CONTEXT);
+
+    private static final List<Table<?>> FILLFACTOR_TABLES = List.of(COMPOSITION, ENTRY, EVENT_CONTEXT, PARTICIPATION);
+
+    private final Logger log = LoggerFactory.getLogger(PhysicalLayout.class);
+
+    private final DSLContext dsl;
+
+    public PhysicalLayout(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    /**
+     * Sets the fillfactor of the composition tables. It applies to pages written afterwards and to {@link #cluster()}.
+     */
+    public void setFillfactor(int fillfactor) {
+        for (var table : FILLFACTOR_TABLES) {
+            dsl.execute("alter table {0} set (fillfactor = {1})", table, DSL.inline(fillfactor));
+            log.info("Set fillfactor of {} to {}", table.getName(), fillfactor);
+        }
+    }
+
+    /**
+     * Rewrites the tables in the order of the index on their EHR or parent column, then analyzes them.
+     */
+    public void cluster() {
+        CLUSTER_COLUMNS.forEach((table, column) -> {
+            var index = findIndex(table, column);
+            if (index == null) {
+                log.warn("No index on {}.{}, skipping CLUSTER", table.getName(), column.getName());
+                return;
+            }
+
+            log.info("Clustering {} using {}...", table.getName(), index);
+            dsl.execute("cluster {0} using {1}", table, DSL.name(index));
+            dsl.execute("analyze {0}", table);
+        });
+    }
+
+    /**
+     * Returns the name of an index whose first column is the given column.
+     */
+    private String findIndex(Table<?> table, Field<?> column) {
+        return dsl.resultQuery("select i.relname"
+                                + " from pg_index x"
+                                + " join pg_class i on i.oid = x.indexrelid"
+                                + " join pg_class t on t.oid = x.indrelid"
+                                + " join pg_namespace n on n.oid = t.relnamespace"
+                                + " join pg_attribute a on a.attrelid = t.oid and a.attnum = x.indkey[0]"
+                                + " where n.nspname = {0} and t.relname = {1} and a.attname = {2}"
+                                + " order by x.indnatts, i.relname"
+                                + " limit 1",
+                        DSL.val(table.getSchema().getName()), DSL.val(table.getName()), DSL.val(column.getName()))
+                .fetchOne(0, String.class);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.testdata.loader.writer;
+
+import org.ehrbase.testdata.loader.corpus.PreparedComposition;
+
+import java.util.UUID;
+
+/**
+ * Writes the rows of EHRs and compositions to the database.
+ * <p>
+ * Implementations buffer rows and write them on {@link #flush()}, table by table in foreign key order, so that the
+ * rows of the EHRs written between two flushes are stored next to each other. A writer is used by a single thread.
+ *
+ * @since 1.0
+ */
+public interface TestDataWriter extends AutoCloseable {
+
+    /**
+     * Adds an EHR with its EHR_STATUS.
+     *
+     * @return the id of the EHR
+     */
+    UUID insertEhr();
+
+    /**
+     * Adds the given composition to the EHR.
+     */
+    void insertComposition(UUID ehrId, PreparedComposition composition);
+
+    /**
+     * Writes all buffered rows.
+     */
+    void flush();
+
+    /**
+     * Flushes the buffered rows and releases the resources held by this writer.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehrbase.testdata.loader.corpus;
+
+import org.ehrbase.testdata.loader.LoaderException;
+import org.ehrbase.testdata.loader.jooq.enums.EntryType;
+import org.ehrbase.testdata.loader.jooq.udt.records.CodePhraseRecord;
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CorpusSnapshotTest {
+
+    private static final String ZONE_ID = "Europe/Berlin";
+
+    private static final String HASH = "0cc175b9c0f1b6a831c399e269772661";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTrip() {
+        var corpus = new Corpus(new PayloadStore());
+        var store = corpus.getPayloadStore();
+        corpus.addTemplate(new PreparedTemplate("template", HASH, store.put("<template/>")));
+        corpus.setEhrStatusOtherDetails(store.put("{\"_type\":\"ITEM_TREE\"}"));
+
+        var timeLower = LocalDateTime.of(2021, 12, 3, 10, 15, 30, 123_000_000);
+        var participation = new PreparedParticipation("Dr. Müller", dvCodedText("function", null), null, timeLower,
+                ZONE_ID, null, null);
+        var context = new PreparedEventContext(LocalDateTime.of(2021, 12, 3, 10, 0), "+01:00", null, null,
+                "Ward 3", dvCodedText("other care", new String[] {"mapping", null}), null, List.of(participation));
+        corpus.addComposition(new PreparedComposition("template", "openEHR-EHR-COMPOSITION.report.v1", "1.0.4",
+                "de", "DE", "Composer", EntryType.care_entry, dvCodedText("event", new String[0]), null,
+                store.put("{\"entry\":\"äöü\"}"), context));
+        corpus.addComposition(new PreparedComposition("template", "openEHR-EHR-COMPOSITION.report.v1", "1.0.4",
+                "en", "GB", null, EntryType.section, dvCodedText("persistent", null),
+                dvCodedText("name", null), store.put("{}"), null));
+
+        var path = tempDir.resolve("corpus.bin");
+        CorpusSnapshot.write(corpus, ZONE_ID, path);
+        var read = CorpusSnapshot.read(path, ZONE_ID);
+
+        assertThat(read.getTemplates()).singleElement().satisfies(template -> {
+            assertThat(template.getTemplateId()).isEqualTo("template");
+            assertThat(template.getHash()).isEqualTo(HASH);
+            assertThat(template.getContent()).hasToString("<template/>");
+        });
+        assertThat(read.getEhrStatusOtherDetails()).hasToString("{\"_type\":\"ITEM_TREE\"}");
+        assertThat(read.getCompositions()).hasSize(2);
+
+        var first = read.getCompositions().get(0);
+        assertThat(first.getTemplateId()).isEqualTo("template");
+        assertThat(first.getArchetypeNodeId()).isEqualTo("openEHR-EHR-COMPOSITION.report.v1");
+        assertThat(first.getRmVersion()).isEqualTo("1.0.4");
+        assertThat(first.getLanguage()).isEqualTo("de");
+        assertThat(first.getTerritory()).isEqualTo("DE");
+        assertThat(first.getComposerName()).isEqualTo("Composer");
+        assertThat(first.getEntryType()).isEqualTo(EntryType.care_entry);
+        assertDvCodedText(first.getCategory(), "event", new String[0]);
+        assertThat(first.getName()).isNull();
+        assertThat(first.getEntry()).hasToString("{\"entry\":\"äöü\"}");
+
+        var readContext = first.getContext();
+        assertThat(readContext.getStartTime()).isEqualTo(LocalDateTime.of(2021, 12, 3, 10, 0));
+        assertThat(readContext.getStartTimeTzid()).isEqualTo("+01:00");
+        assertThat(readContext.getEndTime()).isNull();
+        assertThat(readContext.getEndTimeTzid()).isNull();
+        assertThat(readContext.getLocation()).isEqualTo("Ward 3");
+        assertDvCodedText(readContext.getSetting(), "other care", new String[] {"mapping", null});
+        assertThat(readContext.getOtherContext()).isNull();
+
+        assertThat(readContext.getParticipations()).singleElement().satisfies(readParticipation -> {
+            assertThat(readParticipation.getPerformerName()).isEqualTo("Dr. Müller");
+            assertDvCodedText(readParticipation.getFunction(), "function", null);
+            assertThat(readParticipation.getMode()).isNull();
+            assertThat(readParticipation.getTimeLower()).isEqualTo(timeLower);
+            assertThat(readParticipation.getTimeLowerTz()).isEqualTo(ZONE_ID);
+            assertThat(readParticipation.getTimeUpper()).isNull();
+            assertThat(readParticipation.getTimeUpperTz()).isNull();
+        });
+
+        var second = read.getCompositions().get(1);
+        assertThat(second.getComposerName()).isNull();
+        assertDvCodedText(second.getName(), "name", null);
+        assertThat(second.getEntry()).hasToString("{}");
+        assertThat(second.getContext()).isNull();
+
+        assertThat(read.getPayloadStore().size()).isEqualTo(corpus.getPayloadStore().size());
+    }
+
+    @Test
+    void rejectsOtherTimeZone() {
+        var corpus = new Corpus(new PayloadStore());
+
+        var path = tempDir.resolve("corpus.bin");
+        CorpusSnapshot.write(corpus, ZONE_ID, path);
+
+        assertThatThrownBy(() -> CorpusSnapshot.read(path, "UTC"))
+                .isInstanceOf(LoaderException.class)
+                .hasMessageContaining(ZONE_ID);
+    }
+
+    private static DvCodedTextRecord dvCodedText(String value, String[] termMappings) {
+        var record = new DvCodedTextRecord();
+        record.setValue(value);
+        record.setDefiningCode(new CodePhraseRecord("openehr", "433"));
+        record.setLanguage(new CodePhraseRecord("ISO_639-1", "de"));
+        record.setTermMapping(termMappings);
+        return record;
+    }
+
+    private static void assertDvCodedText(DvCodedTextRecord record, String value, String[] termMappings) {
+        assertThat(record.getValue()).isEqualTo(value);
+        assertThat(record.getDefiningCode().getTerminologyIdValue()).isEqualTo("openehr");
+        assertThat(record.getDefiningCode().getCodeString()).isEqualTo("433");
+        assertThat(record.getFormatting()).isNull();
+        assertThat(record.getLanguage().getTerminologyIdValue()).isEqualTo("ISO_639-1");
+        assertThat(record.getLanguage().getCodeString()).isEqualTo("de");
+        assertThat(record.getEncoding()).isNull();
+        assertThat(record.getTermMapping()).isEqualTo(termMappings);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehrbase.testdata.loader.purge;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PurgerTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 1000, 65536})
+    void rangesCoverUuidSpace(int rangeCount) {
+        assertThat(Purger.lowerBound(0, rangeCount)).isEqualTo(new UUID(0L, 0L));
+        assertThat(Purger.upperBound(rangeCount - 1, rangeCount)).isEqualTo(new UUID(-1L, -1L));
+
+        for (int range = 0; range < rangeCount; range++) {
+            var lower = Purger.lowerBound(range, rangeCount);
+            var upper = Purger.upperBound(range, rangeCount);
+            assertThat(compareUnsigned(lower, upper)).isLessThanOrEqualTo(0);
+
+            if (range < rangeCount - 1) {
+                var nextLower = Purger.lowerBound(range + 1, rangeCount);
+                assertThat(upper.getLeastSignificantBits()).isEqualTo(-1L);
+                assertThat(nextLower.getLeastSignificantBits()).isZero();
+                assertThat(nextLower.getMostSignificantBits()).isEqualTo(upper.getMostSignificantBits() + 1);
+            }
+        }
+    }
+
+    /**
+     * Compares UUIDs the way PostgreSQL does, byte by byte as unsigned values, unlike {@link UUID#compareTo(UUID)}.
+     */
+    private static int compareUnsigned(UUID a, UUID b) {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        if (result != 0) {
+            return result;
+        }
+        return Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
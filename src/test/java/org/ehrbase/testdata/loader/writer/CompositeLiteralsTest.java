@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 vitasystems GmbH and Hannover Medical School.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehrbase.testdata.loader.writer;
+
+import org.ehrbase.testdata.loader.jooq.udt.records.CodePhraseRecord;
+import org.ehrbase.testdata.loader.jooq.udt.records.DvCodedTextRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompositeLiteralsTest {
+
+    @Test
+    void nullFieldsAreEmpty() {
+        var record = new DvCodedTextRecord();
+        record.setValue("value");
+
+        // ("value",,,,,)
+        assertThat(CompositeLiterals.toLiteral(record)).isEqualTo("(\"value\",,,,,)");
+    }
+
+    @Test
+    void emptyStringIsQuoted() {
+        var record = new DvCodedTextRecord();
+        record.setValue("");
+
+        // ("",,,,,)
+        assertThat(CompositeLiterals.toLiteral(record)).isEqualTo("(\"\",,,,,)");
+    }
+
+    @Test
+    void quotesAndBackslashesAreEscaped() {
+        var record = new DvCodedTextRecord();
+        record.setValue("say \"hi\" \\ ok");
+        record.setDefiningCode(new CodePhraseRecord("local", "at0001"));
+        record.setTermMapping(new String[0]);
+
+        // ("say \"hi\" \\ ok","(\"local\",\"at0001\")",,,,"{}")
+        assertThat(CompositeLiterals.toLiteral(record))
+                .isEqualTo("(\"say \\\"hi\\\" \\\\ ok\",\"(\\\"local\\\",\\\"at0001\\\")\",,,,\"{}\")");
+    }
+
+    @Test
+    void nestedCompositeIsEscapedTwice() {
+        var record = new DvCodedTextRecord();
+        record.setValue("value");
+        record.setDefiningCode(new CodePhraseRecord("local", "a\"b\\c"));
+
+        // ("value","(\"local\",\"a\\\"b\\\\c\")",,,,)
+        assertThat(CompositeLiterals.toLiteral(record))
+                .isEqualTo("(\"value\",\"(\\\"local\\\",\\\"a\\\\\\\"b\\\\\\\\c\\\")\",,,,)");
+    }
+
+    @Test
+    void arrayElementsAreQuotedAndNullsKept() {
+        var record = new DvCodedTextRecord();
+        record.setValue("value");
+        record.setTermMapping(new String[] {"x,y", null, "q\"", ""});
+
+        // ("value",,,,,"{\"x,y\",NULL,\"q\\\"\",\"\"}")
+        assertThat(CompositeLiterals.toLiteral(record))
+                .isEqualTo("(\"value\",,,,,\"{\\\"x,y\\\",NULL,\\\"q\\\\\\\"\\\",\\\"\\\"}\")");
+    }
+}